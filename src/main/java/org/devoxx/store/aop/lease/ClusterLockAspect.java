@@ -0,0 +1,33 @@
+package org.devoxx.store.aop.lease;
+
+import org.devoxx.store.service.lease.ClusterLock;
+import org.devoxx.store.service.lease.LeaseService;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect running the methods annotated with {@link ClusterLock} under their lease.
+ * <p>
+ * It runs before the transactions of the methods, so that they are only started on the node holding the lease.
+ * </p>
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ClusterLockAspect {
+
+    private final LeaseService leaseService;
+
+    public ClusterLockAspect(LeaseService leaseService) {
+        this.leaseService = leaseService;
+    }
+
+    @Around("@annotation(clusterLock)")
+    public Object runUnderLease(ProceedingJoinPoint joinPoint, ClusterLock clusterLock) throws Throwable {
+        return leaseService.run(clusterLock.value(), clusterLock.leaseTime(), clusterLock.partitions(),
+            joinPoint::proceed);
+    }
+}
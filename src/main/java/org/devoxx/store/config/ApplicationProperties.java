@@ -12,4 +12,291 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final WishImport wishImport = new WishImport();
+
+    private final WishSketches wishSketches = new WishSketches();
+
+    private final TokenRevocation tokenRevocation = new TokenRevocation();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final LoginThrottle loginThrottle = new LoginThrottle();
+
+    private final AuditEvents auditEvents = new AuditEvents();
+
+    public WishImport getWishImport() {
+        return wishImport;
+    }
+
+    public WishSketches getWishSketches() {
+        return wishSketches;
+    }
+
+    public TokenRevocation getTokenRevocation() {
+        return tokenRevocation;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public LoginThrottle getLoginThrottle() {
+        return loginThrottle;
+    }
+
+    public AuditEvents getAuditEvents() {
+        return auditEvents;
+    }
+
+    public static class WishImport {
+
+        private int batchSize = 500;
+
+        private int queueCapacity = 4;
+
+        private int maxReportedErrors = 1000;
+
+        private int maxConcurrentImports = 2;
+
+        private long maxFileSize = 1024L * 1024 * 1024;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        public int getMaxConcurrentImports() {
+            return maxConcurrentImports;
+        }
+
+        public void setMaxConcurrentImports(int maxConcurrentImports) {
+            this.maxConcurrentImports = maxConcurrentImports;
+        }
+
+        public long getMaxFileSize() {
+            return maxFileSize;
+        }
+
+        public void setMaxFileSize(long maxFileSize) {
+            this.maxFileSize = maxFileSize;
+        }
+    }
+
+    public static class WishSketches {
+
+        private int monitoredProducts = 1000;
+
+        private int distinctUsersPrecision = 11;
+
+        public int getMonitoredProducts() {
+            return monitoredProducts;
+        }
+
+        public void setMonitoredProducts(int monitoredProducts) {
+            this.monitoredProducts = monitoredProducts;
+        }
+
+        public int getDistinctUsersPrecision() {
+            return distinctUsersPrecision;
+        }
+
+        public void setDistinctUsersPrecision(int distinctUsersPrecision) {
+            this.distinctUsersPrecision = distinctUsersPrecision;
+        }
+    }
+
+    public static class TokenRevocation {
+
+        private long syncDelay = 5000;
+
+        private long syncOverlap = 60000;
+
+        private long rebuildDelay = 3600000;
+
+        public long getSyncDelay() {
+            return syncDelay;
+        }
+
+        public void setSyncDelay(long syncDelay) {
+            this.syncDelay = syncDelay;
+        }
+
+        public long getSyncOverlap() {
+            return syncOverlap;
+        }
+
+        public void setSyncOverlap(long syncOverlap) {
+            this.syncOverlap = syncOverlap;
+        }
+
+        public long getRebuildDelay() {
+            return rebuildDelay;
+        }
+
+        public void setRebuildDelay(long rebuildDelay) {
+            this.rebuildDelay = rebuildDelay;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+
+        private int queueCapacity = 50;
+
+        private long targetHashTime = 0;
+
+        private int strength = 0;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTargetHashTime() {
+            return targetHashTime;
+        }
+
+        public void setTargetHashTime(long targetHashTime) {
+            this.targetHashTime = targetHashTime;
+        }
+
+        public int getStrength() {
+            return strength;
+        }
+
+        public void setStrength(int strength) {
+            this.strength = strength;
+        }
+    }
+
+    public static class LoginThrottle {
+
+        private int maxFailuresPerLogin = 10;
+
+        private int maxFailuresPerAddress = 100;
+
+        private long halfLife = 300000;
+
+        private int width = 16384;
+
+        public int getMaxFailuresPerLogin() {
+            return maxFailuresPerLogin;
+        }
+
+        public void setMaxFailuresPerLogin(int maxFailuresPerLogin) {
+            this.maxFailuresPerLogin = maxFailuresPerLogin;
+        }
+
+        public int getMaxFailuresPerAddress() {
+            return maxFailuresPerAddress;
+        }
+
+        public void setMaxFailuresPerAddress(int maxFailuresPerAddress) {
+            this.maxFailuresPerAddress = maxFailuresPerAddress;
+        }
+
+        public long getHalfLife() {
+            return halfLife;
+        }
+
+        public void setHalfLife(long halfLife) {
+            this.halfLife = halfLife;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+    }
+
+    public static class AuditEvents {
+
+        /**
+         * What becomes of the buffered audit events when the application stops.
+         */
+        public enum Durability {
+            /**
+             * The buffered events are lost.
+             */
+            FIRE_AND_FORGET,
+            /**
+             * The buffered events are written before the application stops.
+             */
+            FLUSH_ON_SHUTDOWN
+        }
+
+        private int bufferSize = 8192;
+
+        private int batchSize = 100;
+
+        private long flushDelay = 100;
+
+        private Durability durability = Durability.FLUSH_ON_SHUTDOWN;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushDelay() {
+            return flushDelay;
+        }
+
+        public void setFlushDelay(long flushDelay) {
+            this.flushDelay = flushDelay;
+        }
+
+        public Durability getDurability() {
+            return durability;
+        }
+
+        public void setDurability(Durability durability) {
+            this.durability = durability;
+        }
+    }
 }
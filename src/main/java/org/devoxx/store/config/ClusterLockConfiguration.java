@@ -0,0 +1,18 @@
+package org.devoxx.store.config;
+
+import org.devoxx.store.aop.lease.ClusterLockAspect;
+import org.devoxx.store.service.lease.LeaseService;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class ClusterLockConfiguration {
+
+    @Bean
+    public ClusterLockAspect clusterLockAspect(LeaseService leaseService) {
+        return new ClusterLockAspect(leaseService);
+    }
+}
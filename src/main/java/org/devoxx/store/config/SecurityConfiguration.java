@@ -1,24 +1,23 @@
 package org.devoxx.store.config;
 
+import org.devoxx.store.repository.UserRepository;
 import org.devoxx.store.security.*;
 import org.devoxx.store.security.jwt.*;
 
 import io.github.jhipster.security.*;
 
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.filter.CorsFilter;
@@ -27,7 +26,6 @@ import javax.annotation.PostConstruct;
 
 @Configuration
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
@@ -38,22 +36,33 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final CorsFilter corsFilter;
 
+    private final UserRepository userRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final CacheManager cacheManager;
+
     public SecurityConfiguration(AuthenticationManagerBuilder authenticationManagerBuilder, UserDetailsService userDetailsService,
             TokenProvider tokenProvider,
-        CorsFilter corsFilter) {
+        CorsFilter corsFilter, UserRepository userRepository, ApplicationProperties applicationProperties,
+        CacheManager cacheManager) {
 
         this.authenticationManagerBuilder = authenticationManagerBuilder;
         this.userDetailsService = userDetailsService;
         this.tokenProvider = tokenProvider;
         this.corsFilter = corsFilter;
+        this.userRepository = userRepository;
+        this.applicationProperties = applicationProperties;
+        this.cacheManager = cacheManager;
     }
 
     @PostConstruct
     public void init() {
         try {
             authenticationManagerBuilder
-                .userDetailsService(userDetailsService)
-                    .passwordEncoder(passwordEncoder());
+                .authenticationProvider(
+                    new RehashingAuthenticationProvider(userDetailsService, passwordEncoder(), userRepository,
+                        cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE)));
         } catch (Exception e) {
             throw new BeanInitializationException("Security configuration failed", e);
         }
@@ -65,8 +74,13 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public CalibratedBCryptPasswordEncoder passwordEncoder() {
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        // A configured cost is the same on every node, a calibrated one depends on the hardware of the node
+        if (passwordHashing.getStrength() > 0) {
+            return new CalibratedBCryptPasswordEncoder(passwordHashing.getStrength());
+        }
+        return CalibratedBCryptPasswordEncoder.calibrate(passwordHashing.getTargetHashTime());
     }
 
     @Override
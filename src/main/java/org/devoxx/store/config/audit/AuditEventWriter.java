@@ -0,0 +1,184 @@
+package org.devoxx.store.config.audit;
+
+import org.devoxx.store.config.ApplicationProperties;
+import org.devoxx.store.domain.PersistentAuditEvent;
+import org.devoxx.store.repository.PersistenceAuditEventRepository;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writer of the audit events, off the threads which raise them: the events are buffered in a {@link RingBuffer},
+ * and a background thread writes them by batches, each one in its own transaction.
+ * <p>
+ * Raising an event neither blocks nor touches the database. When the database cannot keep up, the buffer fills up
+ * and the new events are dropped, rather than slowing the authentications down. The events of a batch which cannot be
+ * written are written one by one, so that only the failing ones are dropped. The buffered events are written or
+ * dropped when the application stops, depending on the {@link ApplicationProperties.AuditEvents.Durability}.
+ * </p>
+ */
+@Component
+public class AuditEventWriter {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.AuditEvents properties;
+
+    private final RingBuffer<PersistentAuditEvent> buffer;
+
+    private final Meter written;
+
+    private final Meter dropped;
+
+    private final Timer batches;
+
+    private Thread thread;
+
+    private volatile boolean running = true;
+
+    /**
+     * Whether the writer thread holds events taken from the buffer, not written yet.
+     */
+    private volatile boolean writing;
+
+    public AuditEventWriter(PersistenceAuditEventRepository persistenceAuditEventRepository,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getAuditEvents();
+        this.buffer = new RingBuffer<>(properties.getBufferSize());
+        this.written = metricRegistry.meter(MetricRegistry.name(AuditEventWriter.class, "written"));
+        this.dropped = metricRegistry.meter(MetricRegistry.name(AuditEventWriter.class, "dropped"));
+        this.batches = metricRegistry.timer(MetricRegistry.name(AuditEventWriter.class, "batches"));
+        metricRegistry.register(MetricRegistry.name(AuditEventWriter.class, "queue", "depth"),
+            (Gauge<Integer>) buffer::size);
+    }
+
+    /**
+     * Start the writer thread, once the writer is fully initialized.
+     */
+    @PostConstruct
+    public void start() {
+        thread = new Thread(this::run, "audit-event-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Buffer an event, to be written by the writer thread.
+     *
+     * @return false if the event is dropped, as the buffer is full or the writer is stopped
+     */
+    public boolean add(PersistentAuditEvent event) {
+        if (running && buffer.offer(event)) {
+            return true;
+        }
+        dropped.mark();
+        return false;
+    }
+
+    /**
+     * Wait until the events buffered so far are written.
+     *
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return false if the events are still not written after the timeout
+     */
+    public boolean flush(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!buffer.isEmpty() || writing) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(Math.min(10, properties.getFlushDelay()));
+        }
+        return true;
+    }
+
+    private void run() {
+        List<PersistentAuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            // Set before taking the events, so that flush waits for them
+            writing = true;
+            if (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+                write(batch);
+                writing = false;
+            } else {
+                writing = false;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(properties.getFlushDelay());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(List<PersistentAuditEvent> batch) {
+        try (Timer.Context ignored = batches.time()) {
+            transactionTemplate.execute(status -> persistenceAuditEventRepository.save(batch));
+            written.mark(batch.size());
+        } catch (RuntimeException e) {
+            // Typically an event which is not valid: write the events one by one to find out which ones fail
+            log.debug("Could not write a batch of {} audit events, writing them one by one: {}", batch.size(),
+                e.getMessage());
+            int failed = 0;
+            for (PersistentAuditEvent event : batch) {
+                event.setId(null);
+                try {
+                    transactionTemplate.execute(status -> persistenceAuditEventRepository.save(event));
+                    written.mark();
+                } catch (RuntimeException eventException) {
+                    failed++;
+                    dropped.mark();
+                    log.debug("Could not write an audit event of {}: {}", event.getPrincipal(),
+                        eventException.getMessage());
+                }
+            }
+            if (failed > 0) {
+                log.warn("Could not write {} audit events: {}", failed, e.getMessage());
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // Not interrupted, which could break the connection of the batch being written
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        if (thread.isAlive()) {
+            log.warn("The audit event writer did not stop, {} buffered audit events are lost", buffer.size());
+        } else if (properties.getDurability() == ApplicationProperties.AuditEvents.Durability.FLUSH_ON_SHUTDOWN) {
+            List<PersistentAuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+            while (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+                write(batch);
+            }
+        } else {
+            int lost = buffer.size();
+            dropped.mark(lost);
+            log.info("Dropped {} buffered audit events", lost);
+        }
+    }
+}
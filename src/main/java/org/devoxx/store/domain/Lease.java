@@ -0,0 +1,131 @@
+package org.devoxx.store.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A lease on a job, or on a partition of a job, held by one node of the cluster until it expires, unless the node
+ * renews it.
+ */
+@Entity
+@Table(name = "jhi_lease")
+public class Lease implements Persistable<String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    @Size(max = 100)
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @NotNull
+    @Size(max = 100)
+    @Column(name = "owner", length = 100, nullable = false)
+    private String owner;
+
+    @NotNull
+    @Column(name = "locked_at", nullable = false)
+    private Instant lockedAt;
+
+    @NotNull
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    /**
+     * Whether the lease is created, so that saving it inserts it, and fails if another node created it meanwhile.
+     */
+    @Transient
+    private boolean created;
+
+    public static Lease create(String name, String owner, Instant lockedAt, Instant lockedUntil) {
+        Lease lease = new Lease();
+        lease.name = name;
+        lease.owner = owner;
+        lease.lockedAt = lockedAt;
+        lease.lockedUntil = lockedUntil;
+        lease.created = true;
+        return lease;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        created = false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getLockedAt() {
+        return lockedAt;
+    }
+
+    public void setLockedAt(Instant lockedAt) {
+        this.lockedAt = lockedAt;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Lease lease = (Lease) o;
+        return Objects.equals(name, lease.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+
+    @Override
+    public String toString() {
+        return "Lease{" +
+            "name='" + name + "'" +
+            ", owner='" + owner + "'" +
+            ", lockedAt='" + lockedAt + "'" +
+            ", lockedUntil='" + lockedUntil + "'" +
+            '}';
+    }
+}
@@ -17,7 +17,9 @@ import java.util.Map;
 public class PersistentAuditEvent implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "auditEventIdGenerator")
+    @TableGenerator(name = "auditEventIdGenerator", table = "jhi_id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "persistent_audit_event", allocationSize = 50)
     @Column(name = "event_id")
     private Long id;
 
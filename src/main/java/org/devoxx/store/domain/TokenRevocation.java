@@ -0,0 +1,146 @@
+package org.devoxx.store.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A revocation of JWTs: either of a single token, by its id, or of all the tokens of a user issued before a date.
+ * It is kept until the revoked tokens expire.
+ */
+@Entity
+@Table(name = "jhi_token_revocation")
+public class TokenRevocation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The id of the revoked token, or null if all the tokens of the user are revoked.
+     */
+    @Size(max = 64)
+    @Column(name = "jti", length = 64)
+    private String jti;
+
+    /**
+     * The login of the user whose tokens are revoked, or null if a single token is revoked.
+     */
+    @Size(max = 50)
+    @Column(name = "login", length = 50)
+    private String login;
+
+    /**
+     * The tokens of the user issued before this date are revoked.
+     */
+    @Column(name = "not_before")
+    private Instant notBefore;
+
+    @NotNull
+    @Column(name = "expiration", nullable = false)
+    private Instant expiration;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    public static TokenRevocation ofToken(String jti, Instant expiration) {
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.jti = jti;
+        revocation.expiration = expiration;
+        return revocation;
+    }
+
+    public static TokenRevocation ofUser(String login, Instant notBefore, Instant expiration) {
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.login = login;
+        revocation.notBefore = notBefore;
+        revocation.expiration = expiration;
+        return revocation;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Instant getNotBefore() {
+        return notBefore;
+    }
+
+    public void setNotBefore(Instant notBefore) {
+        this.notBefore = notBefore;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Instant expiration) {
+        this.expiration = expiration;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TokenRevocation tokenRevocation = (TokenRevocation) o;
+        if (tokenRevocation.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, tokenRevocation.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "TokenRevocation{" +
+            "id=" + id +
+            ", jti='" + jti + "'" +
+            ", login='" + login + "'" +
+            ", notBefore='" + notBefore + "'" +
+            ", expiration='" + expiration + "'" +
+            ", createdDate='" + createdDate + "'" +
+            '}';
+    }
+}
@@ -20,7 +20,9 @@ public class Wish implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "wishIdGenerator")
+    @TableGenerator(name = "wishIdGenerator", table = "jhi_id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "wish", allocationSize = 50)
     private Long id;
 
     @NotNull
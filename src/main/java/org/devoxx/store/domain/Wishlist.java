@@ -6,6 +6,7 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Objects;
 
@@ -20,7 +21,9 @@ public class Wishlist implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "wishlistIdGenerator")
+    @TableGenerator(name = "wishlistIdGenerator", table = "jhi_id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "wishlist", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -33,6 +36,18 @@ public class Wishlist implements Serializable {
     @Column(name = "hidden")
     private Boolean hidden;
 
+    /**
+     * Maintained by WishService with delta updates, so it is never written from the entity.
+     */
+    @Column(name = "wish_count", insertable = false, updatable = false)
+    private Long wishCount;
+
+    /**
+     * Maintained by WishService with delta updates, so it is never written from the entity.
+     */
+    @Column(name = "total_price", precision=19, scale=2, insertable = false, updatable = false)
+    private BigDecimal totalPrice;
+
     @ManyToOne
     private User user;
 
@@ -83,6 +98,14 @@ public class Wishlist implements Serializable {
         this.hidden = hidden;
     }
 
+    public Long getWishCount() {
+        return wishCount;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
     public User getUser() {
         return user;
     }
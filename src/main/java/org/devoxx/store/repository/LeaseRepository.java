@@ -0,0 +1,39 @@
+package org.devoxx.store.repository;
+
+import org.devoxx.store.domain.Lease;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+/**
+ * Spring Data JPA repository for the Lease entity.
+ * <p>
+ * The leases are only changed by conditional updates, so that a single node at a time holds each lease.
+ * </p>
+ */
+public interface LeaseRepository extends JpaRepository<Lease, String> {
+
+    /**
+     * Take a lease, if it expired or if the owner already holds it.
+     *
+     * @return 1 if the lease is taken, else 0
+     */
+    @Modifying
+    @Query("update Lease lease set lease.owner = :owner, lease.lockedAt = :now, lease.lockedUntil = :until " +
+        "where lease.name = :name and (lease.lockedUntil < :now or lease.owner = :owner)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now,
+                @Param("until") Instant until);
+
+    /**
+     * Extend or shorten a lease, if the owner still holds it.
+     *
+     * @return 1 if the lease is changed, else 0
+     */
+    @Modifying
+    @Query("update Lease lease set lease.lockedUntil = :until where lease.name = :name and lease.owner = :owner")
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("until") Instant until);
+}
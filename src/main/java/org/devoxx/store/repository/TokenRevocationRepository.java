@@ -0,0 +1,26 @@
+package org.devoxx.store.repository;
+
+import org.devoxx.store.domain.TokenRevocation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the TokenRevocation entity.
+ */
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    List<TokenRevocation> findAllByExpirationAfter(Instant now);
+
+    List<TokenRevocation> findAllByCreatedDateAfterAndExpirationAfter(Instant since, Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from TokenRevocation revocation where revocation.expiration <= ?1")
+    int deleteByExpirationLessThanEqual(Instant now);
+}
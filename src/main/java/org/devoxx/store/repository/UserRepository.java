@@ -5,26 +5,66 @@ import org.devoxx.store.domain.User;
 import java.time.ZonedDateTime;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Spring Data JPA repository for the User entity.
  */
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     Optional<User> findOneByActivationKey(String activationKey);
 
-    List<User> findAllByActivatedIsFalseAndCreatedDateBefore(ZonedDateTime dateTime);
+    /**
+     * Find a chunk of the ids of the users not activated and created before a date, in the order of the ids.
+     *
+     * @param lastId the last id of the previous chunk, or 0 for the first chunk
+     * @param partitionCount the number of partitions of the ids
+     * @param partitionIndex the partition of the ids, that is their remainder by the number of partitions
+     * @return the ids following the last id
+     */
+    @Query("select user.id from User user where user.activated = false and user.createdDate < :dateTime " +
+        "and user.id > :lastId and mod(user.id, :partitionCount) = :partitionIndex order by user.id")
+    List<Long> findIdsOfNotActivatedUsersCreatedBefore(@Param("dateTime") ZonedDateTime dateTime,
+                                                       @Param("lastId") Long lastId,
+                                                       @Param("partitionCount") Integer partitionCount,
+                                                       @Param("partitionIndex") Integer partitionIndex,
+                                                       Pageable pageable);
 
     Optional<User> findOneByResetKey(String resetKey);
 
-    Optional<User> findOneByEmail(String email);
+    /**
+     * Find a chunk of the ids of the users with a reset key issued before a date, in the order of the ids.
+     *
+     * @param lastId the last id of the previous chunk, or 0 for the first chunk
+     * @return the ids following the last id
+     */
+    @Query("select user.id from User user where user.resetKey is not null and user.resetDate < :dateTime " +
+        "and user.id > :lastId order by user.id")
+    List<Long> findIdsOfResetKeysIssuedBefore(@Param("dateTime") ZonedDateTime dateTime,
+                                              @Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Clear the reset keys of users issued before a date.
+     *
+     * @return the number of updated users
+     */
+    @Transactional
+    @Modifying
+    @Query("update User user set user.resetKey = null, user.resetDate = null " +
+        "where user.id in (:ids) and user.resetDate < :dateTime")
+    int clearResetKeys(@Param("ids") Collection<Long> ids, @Param("dateTime") ZonedDateTime dateTime);
 
-    Optional<User> findOneByLogin(String login);
+    Optional<User> findOneByEmail(String email);
 
     @EntityGraph(attributePaths = "authorities")
     User findOneWithAuthoritiesById(Long id);
@@ -33,4 +73,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
     Page<User> findAllByLoginNot(Pageable pageable, String login);
+
+    Slice<User> findAllByLoginNotAndLoginGreaterThanOrderByLoginAsc(String login, String lastLogin, Pageable pageable);
+
+    /**
+     * Replace the password hash of a user, unless it was changed meanwhile.
+     *
+     * @return the number of updated users
+     */
+    @Transactional
+    @Modifying
+    @Query("update User user set user.password = :password where user.login = :login and user.password = :previousPassword")
+    int updatePasswordByLogin(@Param("login") String login, @Param("previousPassword") String previousPassword,
+                              @Param("password") String password);
 }
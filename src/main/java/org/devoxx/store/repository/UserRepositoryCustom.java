@@ -0,0 +1,45 @@
+package org.devoxx.store.repository;
+
+import org.devoxx.store.domain.User;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Methods of the UserRepository which are implemented with Hibernate.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Find a user by login, with the natural id of the users: both the id of the login and the user are read from
+     * the second-level cache when they are cached.
+     * <p>
+     * The cache of each node maps the logins to the ids until they expire, even after the user was renamed by
+     * another node: a user whose login is not the requested one is looked for again in the database.
+     * </p>
+     *
+     * @param login the login
+     * @return the user
+     */
+    Optional<User> findOneByLogin(String login);
+
+    /**
+     * Insert a new user at once, without checking first whether its login or e-mail address are in use: the unique
+     * indexes on these columns reject the duplicates, even when they are inserted concurrently.
+     *
+     * @param user the new user
+     * @return the inserted user
+     * @throws org.springframework.dao.DataIntegrityViolationException if the login or the e-mail address are in use
+     */
+    User insert(User user);
+
+    /**
+     * Delete users which are still not activated, and their authorities, with bulk statements which neither load
+     * nor lock the users one by one. The second-level cache regions of the users and of their authorities are
+     * evicted once the transaction is committed.
+     *
+     * @param ids the ids of the users
+     * @return the number of deleted users
+     */
+    int deleteNotActivatedUsers(Collection<Long> ids);
+}
@@ -0,0 +1,77 @@
+package org.devoxx.store.repository;
+
+import org.devoxx.store.domain.User;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Implementation of the {@link UserRepositoryCustom} methods of the UserRepository.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    public UserRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findOneByLogin(String login) {
+        if (login == null) {
+            return Optional.empty();
+        }
+        Session session = entityManager.unwrap(Session.class);
+        Optional<User> user = session.bySimpleNaturalId(User.class).loadOptional(login);
+        if (!user.isPresent() || login.equals(user.get().getLogin())) {
+            return user;
+        }
+        // The login was resolved by a stale entry, cached before the user was renamed on another node
+        session.getSessionFactory().getCache().evictNaturalIdRegion(User.class);
+        return entityManager.createQuery("select user from User user where user.login = :login", User.class)
+            .setParameter("login", login)
+            .getResultList().stream()
+            .findFirst();
+    }
+
+    @Override
+    @Transactional
+    public User insert(User user) {
+        // Write the pending changes first, they would be lost if the insert fails
+        entityManager.flush();
+        try {
+            entityManager.persist(user);
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            // Forget the rejected user, which the session would try to write again, so that the caller can still
+            // look for the duplicate: the other entities of the caller stay managed
+            entityManager.detach(user);
+            throw e;
+        }
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public int deleteNotActivatedUsers(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // The query space makes Hibernate evict the region of the authorities of the users, and only this one
+        entityManager.createNativeQuery("delete from jhi_user_authority where user_id in " +
+            "(select id from jhi_user where id in (:ids) and activated = false)")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("jhi_user_authority")
+            .setParameterList("ids", ids)
+            .executeUpdate();
+        return entityManager.createQuery("delete from User user where user.id in (:ids) and user.activated = false")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+}
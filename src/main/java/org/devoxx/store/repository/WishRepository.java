@@ -2,14 +2,62 @@ package org.devoxx.store.repository;
 
 import org.devoxx.store.domain.Wish;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Spring Data JPA repository for the Wish entity.
+ *
+ * <p>The wishlist of a wish, and the user of that wishlist, are eagerly loaded: methods returning wishes to the
+ * REST layer use an entity graph so they are fetched in the same query instead of one query per wish.</p>
  */
 @SuppressWarnings("unused")
 public interface WishRepository extends JpaRepository<Wish,Long> {
 
+    /**
+     * Number of rows fetched at once from the JDBC driver by the streaming queries.
+     */
+    int STREAM_FETCH_SIZE = 1000;
+
+    @EntityGraph(attributePaths = {"wishlist", "wishlist.user"})
+    Page<Wish> findAllWithWishlistBy(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"wishlist", "wishlist.user"})
+    Wish findOneWithWishlistById(Long id);
+
+    /**
+     * Read a wish from the database, and lock it until the end of the transaction, so that its changes are applied
+     * one after the other to the totals of its wishlists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select wish from Wish wish where wish.id = :id")
+    Wish findOneForUpdate(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"wishlist", "wishlist.user"})
+    Page<Wish> findByWishlistId(Long wishlistId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"wishlist", "wishlist.user"})
+    Page<Wish> findByProductId(Long productId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"wishlist", "wishlist.user"})
+    Slice<Wish> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select wish from Wish wish left join fetch wish.wishlist wishlist left join fetch wishlist.user order by wish.id")
+    Stream<Wish> streamAllBy();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select wish from Wish wish join fetch wish.wishlist wishlist left join fetch wishlist.user where wishlist.id = :wishlistId order by wish.id")
+    Stream<Wish> streamByWishlistId(@Param("wishlistId") Long wishlistId);
+
 }
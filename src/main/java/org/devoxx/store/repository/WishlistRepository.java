@@ -1,18 +1,36 @@
 package org.devoxx.store.repository;
 
 import org.devoxx.store.domain.Wishlist;
+import org.devoxx.store.service.dto.WishlistSummaryDTO;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Spring Data JPA repository for the Wishlist entity.
  */
 @SuppressWarnings("unused")
-public interface WishlistRepository extends JpaRepository<Wishlist,Long> {
+public interface WishlistRepository extends JpaRepository<Wishlist,Long>, WishlistRepositoryCustom {
 
-    @Query("select wishlist from Wishlist wishlist where wishlist.user.login = ?#{principal.username}")
-    List<Wishlist> findByUserIsCurrentUser();
+    @Query("select wishlist from Wishlist wishlist where wishlist.user.login = :#{principal.username} and wishlist.id > :lastId order by wishlist.id")
+    Slice<Wishlist> findByUserIsCurrentUserAndIdGreaterThan(@Param("lastId") Long lastId, Pageable pageable);
 
+    /**
+     * @return the id of each wishlist, followed by its user, for the wishlists which have a user
+     */
+    @Query("select wishlist.id, user from Wishlist wishlist join wishlist.user user where wishlist.id in :ids")
+    List<Object[]> findUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select user.login from Wishlist wishlist join wishlist.user user where wishlist.id = :id")
+    String findUserLoginById(@Param("id") Long id);
+
+    List<Wishlist> findByUserLogin(String login);
+
+    @Query("select new org.devoxx.store.service.dto.WishlistSummaryDTO(wishlist.id, wishlist.wishCount, wishlist.totalPrice) from Wishlist wishlist where wishlist.id = :id")
+    WishlistSummaryDTO findSummaryById(@Param("id") Long id);
 }
@@ -0,0 +1,29 @@
+package org.devoxx.store.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Methods of the WishlistRepository which are implemented with Hibernate.
+ */
+public interface WishlistRepositoryCustom {
+
+    /**
+     * Add deltas to the totals of a wishlist, in a single statement so that concurrent changes do not overwrite each
+     * other. Only the entry of that wishlist is evicted from the second-level cache, and the wishlist is read again
+     * if it is managed by the current persistence context.
+     *
+     * @param id the id of the wishlist
+     * @param countDelta the number of wishes added, or removed if negative
+     * @param priceDelta the price added to the total price, or removed if negative
+     * @return the number of updated wishlists
+     */
+    int addToTotals(Long id, long countDelta, BigDecimal priceDelta);
+
+    /**
+     * Recompute the totals of the wishlists whose totals differ from their wishes. Only the region of the wishlists is
+     * evicted from the second-level cache.
+     *
+     * @return the number of wishlists which were fixed
+     */
+    int reconcileTotals();
+}
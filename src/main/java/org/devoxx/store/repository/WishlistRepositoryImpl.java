@@ -0,0 +1,75 @@
+package org.devoxx.store.repository;
+
+import org.devoxx.store.domain.Wishlist;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+
+/**
+ * Implementation of the {@link WishlistRepositoryCustom} methods of the WishlistRepository.
+ */
+public class WishlistRepositoryImpl implements WishlistRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    public WishlistRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public int addToTotals(Long id, long countDelta, BigDecimal priceDelta) {
+        // Write the pending changes first, they would be lost when the wishlist is read again
+        entityManager.flush();
+        // The empty query space keeps Hibernate from evicting the whole region of the wishlists, or any other one
+        int count = entityManager.createNativeQuery("update wishlist set wish_count = wish_count + :countDelta, " +
+            "total_price = total_price + :priceDelta where id = :id")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("")
+            .setParameter("countDelta", countDelta)
+            .setParameter("priceDelta", priceDelta)
+            .setParameter("id", id)
+            .executeUpdate();
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Evict again once committed, in case a concurrent transaction cached the previous totals meanwhile
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+        Session session = entityManager.unwrap(Session.class);
+        // Only returns a proxy, which is not initialized, if the wishlist is not already managed
+        Wishlist wishlist = session.byId(Wishlist.class).getReference(id);
+        if (Hibernate.isInitialized(wishlist)) {
+            session.refresh(wishlist);
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int reconcileTotals() {
+        // The query space makes Hibernate evict the region of the wishlists, and only this one
+        return entityManager.createNativeQuery("update wishlist set " +
+            "wish_count = (select count(*) from wish where wish.wishlist_id = wishlist.id), " +
+            "total_price = (select coalesce(sum(wish.price), 0) from wish where wish.wishlist_id = wishlist.id) " +
+            "where wish_count <> (select count(*) from wish where wish.wishlist_id = wishlist.id) " +
+            "or total_price <> (select coalesce(sum(wish.price), 0) from wish where wish.wishlist_id = wishlist.id)")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("wishlist")
+            .executeUpdate();
+    }
+
+    private void evict(Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Wishlist.class, id);
+    }
+}
@@ -0,0 +1,88 @@
+package org.devoxx.store.security;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import org.devoxx.store.config.ApplicationProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates the users with their password on a dedicated bounded pool, so the BCrypt verifications of a burst of
+ * logins cannot take all the request threads. Once the pool and its queue are full, logins are rejected at once
+ * instead of waiting.
+ */
+@Component
+public class AsyncAuthenticationManager {
+
+    private final AuthenticationManager authenticationManager;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Meter rejections;
+
+    private final Timer waits;
+
+    public AsyncAuthenticationManager(AuthenticationManager authenticationManager,
+                                      ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.authenticationManager = authenticationManager;
+        ApplicationProperties.PasswordHashing properties = applicationProperties.getPasswordHashing();
+        int poolSize = properties.getPoolSize();
+        int queueCapacity = properties.getQueueCapacity();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejections = metricRegistry.meter(MetricRegistry.name(AsyncAuthenticationManager.class, "rejected"));
+        this.waits = metricRegistry.timer(MetricRegistry.name(AsyncAuthenticationManager.class, "wait"));
+        metricRegistry.register(MetricRegistry.name(AsyncAuthenticationManager.class, "active"),
+            (Gauge<Integer>) executor::getActiveCount);
+        metricRegistry.register(MetricRegistry.name(AsyncAuthenticationManager.class, "queued"),
+            (Gauge<Integer>) () -> executor.getQueue().size());
+        metricRegistry.register(MetricRegistry.name(AsyncAuthenticationManager.class, "saturation"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(executor.getActiveCount() + executor.getQueue().size(), poolSize + queueCapacity);
+            }
+        });
+    }
+
+    /**
+     * Authenticate on the pool.
+     *
+     * @param authentication the authentication request
+     * @return the authentication, completed exceptionally with an
+     * {@link org.springframework.security.core.AuthenticationException} if it failed
+     * @throws RejectedExecutionException if the pool and its queue are full
+     */
+    public CompletableFuture<Authentication> authenticate(Authentication authentication) {
+        Timer.Context wait = waits.time();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                wait.stop();
+                return authenticationManager.authenticate(authentication);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            // A rejected authentication did not wait: its context is stopped at once
+            wait.stop();
+            rejections.mark();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,82 @@
+package org.devoxx.store.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt password encoder which knows its cost, so the passwords hashed with a lower cost can be hashed again.
+ * <p>
+ * The passwords hashed with a higher cost are kept: the nodes of a cluster may calibrate different costs, and a user
+ * logging in on each of them in turn would otherwise pay a second hash at every login.
+ * </p>
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    /**
+     * The default cost of BCrypt, used by the existing passwords.
+     */
+    public static final int DEFAULT_STRENGTH = 10;
+
+    private static final int MAX_STRENGTH = 16;
+
+    private static final int CALIBRATION_STRENGTH = 6;
+
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Create an encoder whose hashes take about the target time on this machine. Each additional unit of cost
+     * doubles the time, so the cost is extrapolated from the time of a cheap hash. The cost is never lower than the
+     * default one.
+     *
+     * @param targetHashTime the target time of a hash, in milliseconds, or 0 to use the default cost
+     * @return the encoder
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetHashTime) {
+        if (targetHashTime <= 0) {
+            return new CalibratedBCryptPasswordEncoder(DEFAULT_STRENGTH);
+        }
+        String salt = BCrypt.gensalt(CALIBRATION_STRENGTH);
+        long fastest = Long.MAX_VALUE;
+        // The first hashes warm up the JIT
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        double doublings = Math.log(targetHashTime * 1_000_000d / fastest) / Math.log(2);
+        int strength = Math.max(DEFAULT_STRENGTH, Math.min(MAX_STRENGTH,
+            CALIBRATION_STRENGTH + (int) Math.round(doublings)));
+        log.info("BCrypt cost {} for a target hash time of {} ms ({} µs at cost {})", strength, targetHashTime,
+            fastest / 1000, CALIBRATION_STRENGTH);
+        return new CalibratedBCryptPasswordEncoder(strength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * @param encodedPassword a BCrypt hash
+     * @return true if the hash was computed with a lower cost than the cost of this encoder
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // $2a$10$ followed by the salt and the hash
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
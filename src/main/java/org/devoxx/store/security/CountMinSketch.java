@@ -0,0 +1,76 @@
+package org.devoxx.store.security;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A count-min sketch of strings: the estimated count of a string is never lower than its actual count, and is
+ * higher by at most a small fraction of the total count with high probability. Memory does not depend on the number
+ * of distinct strings.
+ * <p>
+ * The counters are updated with atomic operations only, so the sketch is lock-free. {@link #decay()} halves all the
+ * counters, so the counts decay exponentially when it is called periodically.
+ * </p>
+ */
+class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final AtomicIntegerArray counters;
+
+    private final int width;
+
+    private final int mask;
+
+    /**
+     * @param width the number of counters per row, rounded up to a power of two
+     */
+    CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * this.width);
+    }
+
+    /**
+     * Increment the count of a string.
+     *
+     * @return the estimated count of the string, after the increment
+     */
+    int increment(String value) {
+        int hashCode = value.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int count = counters.incrementAndGet(index(row, hashCode));
+            estimate = Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    int estimate(String value) {
+        int hashCode = value.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hashCode)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halve all the counts.
+     */
+    void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            if (counters.get(i) != 0) {
+                counters.getAndUpdate(i, count -> count >>> 1);
+            }
+        }
+    }
+
+    private int index(int row, int hashCode) {
+        long hash = (hashCode ^ (hashCode >>> 16)) * SEEDS[row];
+        return row * width + ((int) (hash >>> 32) & mask);
+    }
+}
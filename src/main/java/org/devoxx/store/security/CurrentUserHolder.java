@@ -0,0 +1,111 @@
+package org.devoxx.store.security;
+
+import org.devoxx.store.domain.User;
+import org.devoxx.store.repository.UserRepository;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+/**
+ * Holds the current user, with its authorities, so it is loaded at most once per request however many times it is
+ * used. Outside of a request, the user is loaded on each call.
+ * <p>
+ * The user is shared by the whole request, so it may be detached from the current persistence context, and must only
+ * be changed through {@link #getCurrentUserForUpdate()}, which forgets it if the changes are rolled back.
+ * </p>
+ */
+@Component
+public class CurrentUserHolder {
+
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserHolder.class.getName() + ".CURRENT_USER";
+
+    private final UserRepository userRepository;
+
+    private final EntityManager entityManager;
+
+    public CurrentUserHolder(UserRepository userRepository, EntityManager entityManager) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @return the current user with its authorities, or empty if there is no current user
+     */
+    public Optional<User> getCurrentUser() {
+        String login = SecurityUtils.getCurrentUserLogin();
+        if (login == null) {
+            return Optional.empty();
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return userRepository.findOneWithAuthoritiesByLogin(login);
+        }
+        Object attribute = requestAttributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        // The current user may change during the request, when it authenticates
+        if (attribute instanceof LoadedUser && ((LoadedUser) attribute).login.equals(login)) {
+            return ((LoadedUser) attribute).user;
+        }
+        Optional<User> user = userRepository.findOneWithAuthoritiesByLogin(login);
+        requestAttributes.setAttribute(CURRENT_USER_ATTRIBUTE, new LoadedUser(login, user),
+            RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    /**
+     * Get the current user to change it in the current transaction, without loading it again: the shared user is
+     * attached to the persistence context of the transaction, so that its changes are written when it is committed.
+     * If the transaction is rolled back, the holder forgets the user, which keeps the changes that were not written,
+     * and the user is loaded again the next time it is used.
+     *
+     * @return the current user with its authorities, or empty if there is no current user
+     */
+    public Optional<User> getCurrentUserForUpdate() {
+        Optional<User> user = getCurrentUser();
+        user.ifPresent(currentUser -> {
+            if (!entityManager.contains(currentUser)) {
+                // Reattached without being read again, its update is written when the session is flushed
+                entityManager.unwrap(Session.class).update(currentUser);
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                            forget();
+                        }
+                    }
+                });
+            }
+        });
+        return user;
+    }
+
+    /**
+     * Forget the current user of the request, so that it is loaded again the next time it is used.
+     */
+    public void forget() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.removeAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static class LoadedUser {
+
+        private final String login;
+
+        private final Optional<User> user;
+
+        LoadedUser(String login, Optional<User> user) {
+            this.login = login;
+            this.user = user;
+        }
+    }
+}
@@ -4,8 +4,8 @@ import org.devoxx.store.domain.User;
 import org.devoxx.store.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,10 +17,18 @@ import java.util.stream.Collectors;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The details of the activated users are cached by lowercase login, and evicted by UserService when they change.
+ * </p>
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements UserDetailsService {
 
+    /**
+     * The cache of the details of each activated user, by lowercase login.
+     */
+    public static final String USER_DETAILS_CACHE = "userDetailsByLogin";
+
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
@@ -31,6 +39,7 @@ public class DomainUserDetailsService implements UserDetailsService {
 
     @Override
     @Transactional
+    @Cacheable(cacheNames = USER_DETAILS_CACHE, key = "#login.toLowerCase(T(java.util.Locale).ENGLISH)")
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
@@ -40,7 +49,7 @@ public class DomainUserDetailsService implements UserDetailsService {
                 throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
             }
             List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
-                    .map(authority -> new SimpleGrantedAuthority(authority.getName()))
+                    .map(authority -> KnownAuthorities.get(authority.getName()))
                 .collect(Collectors.toList());
             return new org.springframework.security.core.userdetails.User(lowercaseLogin,
                 user.getPassword(),
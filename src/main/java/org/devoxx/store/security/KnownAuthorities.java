@@ -0,0 +1,109 @@
+package org.devoxx.store.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The registry of the authorities known by the application, which can be encoded as a bit mask, and decoded to
+ * shared GrantedAuthority instances.
+ */
+public final class KnownAuthorities {
+
+    /**
+     * The known authorities, the bit of each authority being its index: authorities can only be appended, as masks
+     * are stored in tokens.
+     */
+    private static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(
+        AuthoritiesConstants.ADMIN,
+        AuthoritiesConstants.USER,
+        AuthoritiesConstants.ANONYMOUS));
+
+    private static final Map<String, Integer> BITS = new HashMap<>();
+
+    private static final GrantedAuthority[] AUTHORITIES = new GrantedAuthority[NAMES.size()];
+
+    /**
+     * The shared list of authorities of each mask.
+     */
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK = new ArrayList<>(1 << NAMES.size());
+
+    static {
+        for (int bit = 0; bit < NAMES.size(); bit++) {
+            BITS.put(NAMES.get(bit), bit);
+            AUTHORITIES[bit] = new SimpleGrantedAuthority(NAMES.get(bit));
+        }
+        for (int mask = 0; mask < 1 << NAMES.size(); mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>(Integer.bitCount(mask));
+            for (int bit = 0; bit < NAMES.size(); bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    authorities.add(AUTHORITIES[bit]);
+                }
+            }
+            AUTHORITIES_BY_MASK.add(Collections.unmodifiableList(authorities));
+        }
+    }
+
+    private KnownAuthorities() {
+    }
+
+    /**
+     * @param name the name of an authority
+     * @return true if the authority is known, and has a bit
+     */
+    public static boolean isKnown(String name) {
+        return BITS.containsKey(name);
+    }
+
+    /**
+     * @param name the name of an authority
+     * @return the bit of the authority, or -1 if it is not known
+     */
+    public static int bitOf(String name) {
+        Integer bit = BITS.get(name);
+        return bit == null ? -1 : bit;
+    }
+
+    /**
+     * @param authorities authorities, of which the unknown ones are ignored
+     * @return the mask of the known authorities
+     */
+    public static int toMask(Collection<? extends GrantedAuthority> authorities) {
+        int mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            Integer bit = BITS.get(authority.getAuthority());
+            if (bit != null) {
+                mask |= 1 << bit;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param mask a mask of known authorities
+     * @return the shared, unmodifiable list of the authorities of the mask
+     * @throws IllegalArgumentException if the mask has unknown bits
+     */
+    public static List<GrantedAuthority> fromMask(int mask) {
+        if (mask < 0 || mask >= AUTHORITIES_BY_MASK.size()) {
+            throw new IllegalArgumentException("Unknown authorities in mask " + Integer.toBinaryString(mask));
+        }
+        return AUTHORITIES_BY_MASK.get(mask);
+    }
+
+    /**
+     * @param name the name of an authority
+     * @return the shared instance of a known authority, or a new instance of an unknown one
+     */
+    public static GrantedAuthority get(String name) {
+        Integer bit = BITS.get(name);
+        return bit == null ? new SimpleGrantedAuthority(name) : AUTHORITIES[bit];
+    }
+}
@@ -0,0 +1,130 @@
+package org.devoxx.store.security;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.devoxx.store.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.actuate.audit.listener.AuditApplicationEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Counts the failed logins of each login and of each client address, so the logins of the hot ones are rejected
+ * before their password is hashed.
+ * <p>
+ * The failures are counted by count-min sketches, whose memory does not depend on the number of logins and
+ * addresses tried by an attacker, and whose counts are halved every half-life. The estimated counts may be higher
+ * than the actual ones, never lower.
+ * </p>
+ */
+@Component
+public class LoginThrottle {
+
+    /**
+     * The audit event type of failed authentications, published by Spring Boot.
+     */
+    public static final String AUTHENTICATION_FAILURE = "AUTHENTICATION_FAILURE";
+
+    private final Logger log = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private final int maxFailuresPerLogin;
+
+    private final int maxFailuresPerAddress;
+
+    private final long halfLife;
+
+    private final CountMinSketch failuresByLogin;
+
+    private final CountMinSketch failuresByAddress;
+
+    private final Meter failures;
+
+    private final Meter throttledLogins;
+
+    private final Meter throttledAddresses;
+
+    public LoginThrottle(ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        ApplicationProperties.LoginThrottle properties = applicationProperties.getLoginThrottle();
+        this.maxFailuresPerLogin = properties.getMaxFailuresPerLogin();
+        this.maxFailuresPerAddress = properties.getMaxFailuresPerAddress();
+        this.halfLife = properties.getHalfLife();
+        this.failuresByLogin = new CountMinSketch(properties.getWidth());
+        this.failuresByAddress = new CountMinSketch(properties.getWidth());
+        this.failures = metricRegistry.meter(MetricRegistry.name(LoginThrottle.class, "failures"));
+        this.throttledLogins = metricRegistry.meter(MetricRegistry.name(LoginThrottle.class, "throttled", "login"));
+        this.throttledAddresses =
+            metricRegistry.meter(MetricRegistry.name(LoginThrottle.class, "throttled", "address"));
+    }
+
+    /**
+     * @param login the login, as entered by the user
+     * @param remoteAddress the address of the client
+     * @return true if the login must be rejected without checking the password
+     */
+    public boolean isThrottled(String login, String remoteAddress) {
+        if (remoteAddress != null && failuresByAddress.estimate(remoteAddress) >= maxFailuresPerAddress) {
+            throttledAddresses.mark();
+            return true;
+        }
+        if (login != null && failuresByLogin.estimate(normalize(login)) >= maxFailuresPerLogin) {
+            throttledLogins.mark();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of seconds after which the counts are halved
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, halfLife / 1000);
+    }
+
+    public void recordFailure(String login, String remoteAddress) {
+        failures.mark();
+        if (login != null) {
+            int count = failuresByLogin.increment(normalize(login));
+            if (count == maxFailuresPerLogin) {
+                log.warn("Throttling the logins of User {} after {} failures", login, count);
+            }
+        }
+        if (remoteAddress != null) {
+            int count = failuresByAddress.increment(remoteAddress);
+            if (count == maxFailuresPerAddress) {
+                log.warn("Throttling the logins from {} after {} failures", remoteAddress, count);
+            }
+        }
+    }
+
+    @EventListener
+    public void onAuditEvent(AuditApplicationEvent event) {
+        AuditEvent auditEvent = event.getAuditEvent();
+        if (AUTHENTICATION_FAILURE.equals(auditEvent.getType())) {
+            Object details = auditEvent.getData().get("details");
+            recordFailure(auditEvent.getPrincipal(),
+                details instanceof WebAuthenticationDetails ? ((WebAuthenticationDetails) details).getRemoteAddress() : null);
+        }
+    }
+
+    /**
+     * Halve the failure counts, so the throttled logins and addresses are released once they stop failing.
+     */
+    @Scheduled(fixedRateString = "${application.login-throttle.half-life:300000}")
+    public void decay() {
+        failuresByLogin.decay();
+        failuresByAddress.decay();
+    }
+
+    /**
+     * Logins are stored in lower case.
+     */
+    private static String normalize(String login) {
+        return login.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,65 @@
+package org.devoxx.store.security;
+
+import org.devoxx.store.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * Authenticates the users with their password, and hashes the password again when it was hashed with a lower BCrypt
+ * cost than the current one, so the cost of the stored passwords rises with the configured target hash time.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final Logger log = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    private final CalibratedBCryptPasswordEncoder passwordEncoder;
+
+    private final UserRepository userRepository;
+
+    private final Cache userDetailsCache;
+
+    /**
+     * @param userDetailsCache the cache of the user details loaded by the user details service, evicted when a
+     * password is hashed again
+     */
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService,
+                                           CalibratedBCryptPasswordEncoder passwordEncoder,
+                                           UserRepository userRepository, Cache userDetailsCache) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        // The user details are cached, so the authentications must not hold them: erasing their credentials would
+        // erase the cached password
+        setForcePrincipalAsString(true);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+        throws AuthenticationException {
+        super.additionalAuthenticationChecks(userDetails, authentication);
+
+        if (passwordEncoder.needsRehash(userDetails.getPassword())) {
+            String password = passwordEncoder.encode(authentication.getCredentials().toString());
+            try {
+                userRepository.updatePasswordByLogin(userDetails.getUsername(), userDetails.getPassword(), password);
+                userDetailsCache.evict(userDetails.getUsername());
+                log.debug("Hashed the password of User {} with cost {}", userDetails.getUsername(),
+                    passwordEncoder.getStrength());
+            } catch (DataAccessException e) {
+                // The user is authenticated anyway, the password will be hashed again on the next login
+                log.warn("Could not hash the password of User {} again: {}", userDetails.getUsername(),
+                    e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.devoxx.store.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * An authentication which holds the mask of its authorities known by {@link KnownAuthorities}, so checking whether
+ * it has a known authority is a bit test, which neither iterates over the authorities nor allocates.
+ */
+public class RoleAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int roleMask;
+
+    /**
+     * Whether some authorities are not known, and must be compared by name.
+     */
+    private final boolean unknownAuthorities;
+
+    public RoleAuthenticationToken(Object principal, Object credentials,
+                                   Collection<? extends GrantedAuthority> authorities) {
+        super(principal, credentials, authorities);
+        this.roleMask = KnownAuthorities.toMask(authorities);
+        this.unknownAuthorities = Integer.bitCount(roleMask) < authorities.size();
+    }
+
+    /**
+     * @param authority the name of an authority
+     * @return true if this authentication has the authority
+     */
+    public boolean hasAuthority(String authority) {
+        int bit = KnownAuthorities.bitOf(authority);
+        if (bit >= 0) {
+            return (roleMask & (1 << bit)) != 0;
+        }
+        if (unknownAuthorities) {
+            for (GrantedAuthority grantedAuthority : getAuthorities()) {
+                if (authority.equals(grantedAuthority.getAuthority())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getRoleMask() {
+        return roleMask;
+    }
+}
@@ -0,0 +1,32 @@
+package org.devoxx.store.security;
+
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.vote.RoleVoter;
+import org.springframework.security.core.Authentication;
+
+import java.util.Collection;
+
+/**
+ * Votes like the {@link RoleVoter}, on the attributes starting with "ROLE_" such as the ones of {@code @Secured},
+ * with the bit tests of {@link SecurityUtils#hasAuthority(Authentication, String)} instead of comparing the name of
+ * each authority.
+ */
+public class RoleMaskVoter extends RoleVoter {
+
+    @Override
+    public int vote(Authentication authentication, Object object, Collection<ConfigAttribute> attributes) {
+        if (authentication == null) {
+            return ACCESS_DENIED;
+        }
+        int result = ACCESS_ABSTAIN;
+        for (ConfigAttribute attribute : attributes) {
+            if (supports(attribute)) {
+                result = ACCESS_DENIED;
+                if (SecurityUtils.hasAuthority(authentication, attribute.getAttribute())) {
+                    return ACCESS_GRANTED;
+                }
+            }
+        }
+        return result;
+    }
+}
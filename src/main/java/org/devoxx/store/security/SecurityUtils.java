@@ -1,6 +1,7 @@
 package org.devoxx.store.security;
 
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -42,8 +43,7 @@ public final class SecurityUtils {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
         if (authentication != null) {
-            return authentication.getAuthorities().stream()
-                .noneMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(AuthoritiesConstants.ANONYMOUS));
+            return !hasAuthority(authentication, AuthoritiesConstants.ANONYMOUS);
         }
         return false;
     }
@@ -60,8 +60,27 @@ public final class SecurityUtils {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
         if (authentication != null) {
-            return authentication.getAuthorities().stream()
-                .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(authority));
+            return hasAuthority(authentication, authority);
+        }
+        return false;
+    }
+
+    /**
+     * If an authentication has a specific authority. The authentications created from tokens are
+     * {@link RoleAuthenticationToken}s, checked with a bit test.
+     *
+     * @param authentication the authentication
+     * @param authority the authority to check
+     * @return true if the authentication has the authority, false otherwise
+     */
+    public static boolean hasAuthority(Authentication authentication, String authority) {
+        if (authentication instanceof RoleAuthenticationToken) {
+            return ((RoleAuthenticationToken) authentication).hasAuthority(authority);
+        }
+        for (GrantedAuthority grantedAuthority : authentication.getAuthorities()) {
+            if (authority.equals(grantedAuthority.getAuthority())) {
+                return true;
+            }
         }
         return false;
     }
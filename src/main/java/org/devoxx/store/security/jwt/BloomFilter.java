@@ -0,0 +1,69 @@
+package org.devoxx.store.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings: {@link #mightContain(String)} never returns false for an added string, and returns true
+ * for other strings with a probability which depends on the number of bits per added string.
+ * <p>
+ * Strings are hashed with their cached {@link String#hashCode()}, so checking a string does not allocate. The
+ * filter is thread-safe, and strings cannot be removed: it must be rebuilt instead.
+ * </p>
+ */
+class BloomFilter {
+
+    private static final int BITS_PER_ELEMENT = 10;
+
+    /**
+     * The optimal number of hashes for 10 bits per element, for a false positive rate under 1%.
+     */
+    private static final int HASHES = 7;
+
+    private final AtomicLongArray words;
+
+    private final int mask;
+
+    /**
+     * @param expectedSize the expected number of strings
+     */
+    BloomFilter(int expectedSize) {
+        long bits = Math.max(64L, (long) expectedSize * BITS_PER_ELEMENT);
+        int size = (int) Math.min(1L << 30, Long.highestOneBit(bits - 1) << 1);
+        this.words = new AtomicLongArray(size >>> 6);
+        this.mask = size - 1;
+    }
+
+    void add(String value) {
+        long hash = mix(value.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            long bitMask = 1L << bit;
+            words.getAndAccumulate(bit >>> 6, bitMask, (word, m) -> word | m);
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = mix(value.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Spread the 32 bits of a hash code into 64 bits, so they give two independent hashes.
+     */
+    private static long mix(int hashCode) {
+        long hash = hashCode * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 29);
+    }
+}
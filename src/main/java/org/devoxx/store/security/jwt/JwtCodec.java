@@ -0,0 +1,131 @@
+package org.devoxx.store.security.jwt;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Signs and verifies JSON Web Tokens with HMAC-SHA512, producing the same tokens as the jjwt library, without
+ * rebuilding the key and the HMAC engine for each token.
+ * <p>
+ * The key is built once, and each thread reuses its own Mac instance.
+ * </p>
+ */
+final class JwtCodec {
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
+
+    private static final Base64.Encoder BASE64URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder BASE64URL_DECODER = Base64.getUrlDecoder();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    /**
+     * The encoded header of the tokens: {"alg":"HS512"}.
+     */
+    private static final String HEADER = encodeJson(Collections.singletonMap("alg", ALGORITHM.getValue()));
+
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * @param key the HMAC key, which jjwt decodes from the base64 secret
+     */
+    JwtCodec(byte[] key) {
+        SecretKeySpec secretKey = new SecretKeySpec(key, ALGORITHM.getJcaName());
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM.getJcaName());
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not initialize " + ALGORITHM.getJcaName(), e);
+            }
+        });
+        // Fail now rather than on the first token if the key is not usable
+        macs.get();
+    }
+
+    /**
+     * @param claims the claims of the token
+     * @return the signed token
+     */
+    String encode(Map<String, Object> claims) {
+        String signingInput = HEADER + '.' + encodeJson(claims);
+        byte[] signature = macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + BASE64URL_ENCODER.encodeToString(signature);
+    }
+
+    /**
+     * @param token the signed token
+     * @return the claims of the token
+     * @throws MalformedJwtException if the token is not a signed token
+     * @throws SignatureException if the signature of the token is not valid
+     * @throws ExpiredJwtException if the token is expired
+     */
+    Claims decode(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.lastIndexOf('.');
+        if (headerEnd < 0 || headerEnd == payloadEnd || token.indexOf('.', headerEnd + 1) != payloadEnd) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+        if (headerEnd != HEADER.length() || !token.startsWith(HEADER)) {
+            Map<String, Object> header = decodeJson(token.substring(0, headerEnd));
+            if (!ALGORITHM.getValue().equals(header.get("alg"))) {
+                throw new SignatureException("Unsupported JWT algorithm: " + header.get("alg"));
+            }
+        }
+        Mac mac = macs.get();
+        mac.update(token.getBytes(StandardCharsets.US_ASCII), 0, payloadEnd);
+        byte[] signature;
+        try {
+            signature = BASE64URL_DECODER.decode(token.substring(payloadEnd + 1));
+        } catch (IllegalArgumentException e) {
+            mac.reset();
+            throw new MalformedJwtException("Invalid JWT signature encoding.", e);
+        }
+        if (!MessageDigest.isEqual(mac.doFinal(), signature)) {
+            throw new SignatureException("JWT signature does not match locally computed signature. " +
+                "JWT validity cannot be asserted and should not be trusted.");
+        }
+        Claims claims = new DefaultClaims(decodeJson(token.substring(headerEnd + 1, payloadEnd)));
+        if (claims.getExpiration() != null && System.currentTimeMillis() >= claims.getExpiration().getTime()) {
+            throw new ExpiredJwtException(null, claims, "JWT expired at " + claims.getExpiration() + ".");
+        }
+        return claims;
+    }
+
+    private static String encodeJson(Object value) {
+        try {
+            return BASE64URL_ENCODER.encodeToString(OBJECT_MAPPER.writeValueAsBytes(value));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not serialize JWT part", e);
+        }
+    }
+
+    private static Map<String, Object> decodeJson(String part) {
+        try {
+            return OBJECT_MAPPER.readValue(BASE64URL_DECODER.decode(part), CLAIMS_TYPE);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Unable to read JWT part: " + e.getMessage(), e);
+        }
+    }
+}
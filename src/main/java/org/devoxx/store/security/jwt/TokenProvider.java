@@ -2,29 +2,54 @@ package org.devoxx.store.security.jwt;
 
 import io.github.jhipster.config.JHipsterProperties;
 
+import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import org.devoxx.store.security.KnownAuthorities;
+import org.devoxx.store.security.RoleAuthenticationToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class TokenProvider {
 
     private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
 
+    /**
+     * The authorities which are not known by {@link KnownAuthorities}, comma separated. Older tokens hold all their
+     * authorities in this claim.
+     */
     private static final String AUTHORITIES_KEY = "auth";
 
-    private String secretKey;
+    /**
+     * The mask of the authorities known by {@link KnownAuthorities}.
+     */
+    private static final String ROLES_KEY = "rol";
+
+    /**
+     * The maximum number of verified tokens kept in memory.
+     */
+    static final int MAX_CACHED_AUTHENTICATIONS = 10000;
+
+    private static final Base64.Encoder JTI_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private JwtCodec jwtCodec;
 
     private long tokenValidityInMilliseconds;
 
@@ -32,14 +57,38 @@ public class TokenProvider {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * The authentications of the tokens which were verified, by token. The token itself is the key, as hashing it
+     * would cost as much as the verification it saves.
+     */
+    private final ConcurrentMap<String, VerifiedAuthentication> verifiedAuthentications = new ConcurrentHashMap<>();
+
+    private final Meter cacheHits;
+
+    private final Meter cacheMisses;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, TokenRevocationService tokenRevocationService,
+                         MetricRegistry metricRegistry) {
         this.jHipsterProperties = jHipsterProperties;
+        this.tokenRevocationService = tokenRevocationService;
+        this.cacheHits = metricRegistry.meter(MetricRegistry.name(TokenProvider.class, "cache", "hits"));
+        this.cacheMisses = metricRegistry.meter(MetricRegistry.name(TokenProvider.class, "cache", "misses"));
+        metricRegistry.register(MetricRegistry.name(TokenProvider.class, "cache", "hit-ratio"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(cacheHits.getFiveMinuteRate(),
+                    cacheHits.getFiveMinuteRate() + cacheMisses.getFiveMinuteRate());
+            }
+        });
     }
 
     @PostConstruct
     public void init() {
-        this.secretKey =
-            jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
+        // jjwt decodes string secrets from base64, so existing tokens remain valid
+        this.jwtCodec = new JwtCodec(
+            TextCodec.BASE64.decode(jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret()));
 
         this.tokenValidityInMilliseconds =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
@@ -48,49 +97,186 @@ public class TokenProvider {
     }
 
     public String createToken(Authentication authentication, Boolean rememberMe) {
-        String authorities = authentication.getAuthorities().stream()
+        String unknownAuthorities = authentication.getAuthorities().stream()
             .map(GrantedAuthority::getAuthority)
+            .filter(authority -> !KnownAuthorities.isKnown(authority))
             .collect(Collectors.joining(","));
 
-        long now = (new Date()).getTime();
-        Date validity;
+        long now = System.currentTimeMillis();
+        long validity;
         if (rememberMe) {
-            validity = new Date(now + this.tokenValidityInMillisecondsForRememberMe);
+            validity = now + this.tokenValidityInMillisecondsForRememberMe;
         } else {
-            validity = new Date(now + this.tokenValidityInMilliseconds);
+            validity = now + this.tokenValidityInMilliseconds;
         }
 
-        return Jwts.builder()
-            .setSubject(authentication.getName())
-            .claim(AUTHORITIES_KEY, authorities)
-            .signWith(SignatureAlgorithm.HS512, secretKey)
-            .setExpiration(validity)
-            .compact();
+        byte[] jti = new byte[16];
+        secureRandom.nextBytes(jti);
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.ID, JTI_ENCODER.encodeToString(jti));
+        claims.put(Claims.SUBJECT, authentication.getName());
+        claims.put(ROLES_KEY, KnownAuthorities.toMask(authentication.getAuthorities()));
+        if (!unknownAuthorities.isEmpty()) {
+            claims.put(AUTHORITIES_KEY, unknownAuthorities);
+        }
+        claims.put(Claims.ISSUED_AT, now / 1000);
+        claims.put(Claims.EXPIRATION, validity / 1000);
+        return jwtCodec.encode(claims);
     }
 
+    /**
+     * @param token the token
+     * @return the authentication, or null if the token is revoked
+     */
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-            .setSigningKey(secretKey)
-            .parseClaimsJws(token)
-            .getBody();
-
-        Collection<? extends GrantedAuthority> authorities =
-            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        VerifiedAuthentication verified = getVerifiedAuthentication(token);
+        if (verified == null) {
+            verified = verify(token);
+        }
+        return verified.getAuthenticationIfNotRevoked();
+    }
 
-        User principal = new User(claims.getSubject(), "", authorities);
+    /**
+     * Verify a token and get its authentication, parsing the token only once, and only if it was not verified
+     * recently.
+     * <p>
+     * The authentications of verified tokens are shared by the requests which use the same token, so they must not
+     * be modified.
+     * </p>
+     *
+     * @param token the token
+     * @return the authentication, or null if the signature of the token is not valid or if the token is revoked
+     * @throws ExpiredJwtException if the token is expired
+     */
+    public Authentication getValidAuthentication(String token) {
+        VerifiedAuthentication verified = getVerifiedAuthentication(token);
+        if (verified == null) {
+            try {
+                verified = verify(token);
+            } catch (SignatureException e) {
+                log.info("Invalid JWT signature: " + e.getMessage());
+                return null;
+            }
+        }
+        return verified.getAuthenticationIfNotRevoked();
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, "", authorities);
+    /**
+     * Revoke a valid token, on all the instances. Tokens without id, issued before ids were added, revoke all the
+     * tokens of their user.
+     *
+     * @param token the token
+     */
+    public void revokeToken(String token) {
+        Claims claims = jwtCodec.decode(token);
+        if (claims.getId() != null) {
+            tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        } else {
+            tokenRevocationService.revokeTokensOf(claims.getSubject());
+        }
+        verifiedAuthentications.remove(token);
     }
 
     public boolean validateToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken);
+            jwtCodec.decode(authToken);
             return true;
         } catch (SignatureException e) {
             log.info("Invalid JWT signature: " + e.getMessage());
             return false;
         }
     }
+
+    private VerifiedAuthentication getVerifiedAuthentication(String token) {
+        VerifiedAuthentication verified = verifiedAuthentications.get(token);
+        if (verified != null) {
+            if (verified.expiration > System.currentTimeMillis()) {
+                cacheHits.mark();
+                return verified;
+            }
+            // Parsing the token again reports it as expired
+            verifiedAuthentications.remove(token, verified);
+        }
+        cacheMisses.mark();
+        return null;
+    }
+
+    private VerifiedAuthentication verify(String token) {
+        Claims claims = jwtCodec.decode(token);
+
+        Collection<GrantedAuthority> authorities = getAuthorities(claims);
+
+        User principal = new User(claims.getSubject(), "", authorities);
+
+        Authentication authentication = new RoleAuthenticationToken(principal, "", authorities);
+        Date issuedAt = claims.getIssuedAt();
+        VerifiedAuthentication verified = new VerifiedAuthentication(authentication, claims.getId(),
+            issuedAt == null ? 0 : issuedAt.getTime(),
+            claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
+        if (claims.getExpiration() != null) {
+            if (verifiedAuthentications.size() >= MAX_CACHED_AUTHENTICATIONS) {
+                evictVerifiedAuthentications();
+            }
+            verifiedAuthentications.put(token, verified);
+        }
+        return verified;
+    }
+
+    private static Collection<GrantedAuthority> getAuthorities(Claims claims) {
+        Number mask = claims.get(ROLES_KEY, Number.class);
+        List<GrantedAuthority> knownAuthorities = KnownAuthorities.fromMask(mask == null ? 0 : mask.intValue());
+        String otherAuthorities = claims.get(AUTHORITIES_KEY, String.class);
+        if (otherAuthorities == null || otherAuthorities.isEmpty()) {
+            return knownAuthorities;
+        }
+        Collection<GrantedAuthority> authorities = new LinkedHashSet<>(knownAuthorities);
+        for (String authority : otherAuthorities.split(",")) {
+            authorities.add(KnownAuthorities.get(authority));
+        }
+        return authorities;
+    }
+
+    /**
+     * Evict the expired tokens, then arbitrary tokens if there are still too many, down to three quarters of the
+     * maximum size so evictions do not happen on every new token.
+     */
+    private void evictVerifiedAuthentications() {
+        long now = System.currentTimeMillis();
+        verifiedAuthentications.values().removeIf(verified -> verified.expiration <= now);
+        Iterator<String> tokens = verifiedAuthentications.keySet().iterator();
+        while (verifiedAuthentications.size() > MAX_CACHED_AUTHENTICATIONS * 3 / 4 && tokens.hasNext()) {
+            tokens.next();
+            tokens.remove();
+        }
+    }
+
+    /**
+     * A verified token. Tokens may be revoked after their verification, so this is checked on each use.
+     */
+    private class VerifiedAuthentication {
+
+        private final Authentication authentication;
+
+        private final String jti;
+
+        private final long issuedAt;
+
+        private final long expiration;
+
+        VerifiedAuthentication(Authentication authentication, String jti, long issuedAt, long expiration) {
+            this.authentication = authentication;
+            this.jti = jti;
+            this.issuedAt = issuedAt;
+            this.expiration = expiration;
+        }
+
+        Authentication getAuthenticationIfNotRevoked() {
+            if (tokenRevocationService.isRevoked(jti, authentication.getName(), issuedAt)) {
+                log.debug("Revoked JWT for user {}", authentication.getName());
+                return null;
+            }
+            return authentication;
+        }
+    }
 }
@@ -0,0 +1,250 @@
+package org.devoxx.store.security.jwt;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.devoxx.store.config.ApplicationProperties;
+import org.devoxx.store.domain.TokenRevocation;
+import org.devoxx.store.repository.TokenRevocationRepository;
+import org.devoxx.store.security.DomainUserDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Service revoking JWTs before they expire: a single token, by its id, or all the tokens of a user issued before a
+ * date, when the user changes their password or is deleted.
+ * <p>
+ * Every authenticated request checks its token, so the revocations are kept in memory, behind a Bloom filter of
+ * token ids and one of logins: a token which is not revoked is almost always rejected by the filters, without
+ * allocating nor locking. The filters cannot remove entries, so they are rebuilt from the database when the expired
+ * revocations are purged.
+ * </p>
+ * <p>
+ * The revocations are stored in the database, and each instance polls the revocations created since its last poll,
+ * so a revocation reaches all the instances sharing the database within the sync delay.
+ * </p>
+ * <p>
+ * The tokens of a user are revoked whenever their password, authorities or activation change, or they are deleted:
+ * the details of the users cached by each instance to authenticate them are evicted when the revocations of their
+ * tokens are polled, so that the other instances do not keep accepting the previous password.
+ * </p>
+ */
+@Service
+public class TokenRevocationService {
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    private final long tokenValidityInMillisecondsForRememberMe;
+
+    private final long syncOverlap;
+
+    private final Cache userDetailsCache;
+
+    /**
+     * The expiration of each revoked token, by id.
+     */
+    private final ConcurrentMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * The revocations of the tokens of each user, by login.
+     */
+    private final ConcurrentMap<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter tokenFilter = new BloomFilter(0);
+
+    private volatile BloomFilter userFilter = new BloomFilter(0);
+
+    /**
+     * The date of the last poll of the revocations, or null before the revocations are loaded.
+     */
+    private Instant lastSync;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+                                  CacheManager cacheManager) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenValidityInMillisecondsForRememberMe =
+            1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
+        this.syncOverlap = applicationProperties.getTokenRevocation().getSyncOverlap();
+        this.userDetailsCache = cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+    }
+
+    /**
+     * Check whether a token is revoked.
+     *
+     * @param jti the id of the token, or null if it has no id
+     * @param login the login of the user of the token
+     * @param issuedAt the date the token was issued at, in milliseconds, or 0 if it has no such date
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(String jti, String login, long issuedAt) {
+        if (jti != null && tokenFilter.mightContain(jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (login != null && userFilter.mightContain(login)) {
+            UserRevocation revocation = revokedUsers.get(login);
+            return revocation != null && issuedAt < revocation.notBefore;
+        }
+        return false;
+    }
+
+    /**
+     * Revoke a token. The revocation applies to this instance at once, even if the current transaction is rolled
+     * back.
+     *
+     * @param jti the id of the token
+     * @param expiration the expiration of the token, after which the revocation is purged
+     */
+    @Transactional
+    public void revokeToken(String jti, Instant expiration) {
+        log.debug("Request to revoke token : {}", jti);
+        TokenRevocation revocation = tokenRevocationRepository.save(TokenRevocation.ofToken(jti, expiration));
+        apply(revocation);
+    }
+
+    /**
+     * Revoke the tokens of a user issued before the current second. The revocation applies to this instance at once, even if the
+     * current transaction is rolled back.
+     *
+     * @param login the login of the user
+     */
+    @Transactional
+    public void revokeTokensOf(String login) {
+        log.debug("Request to revoke the tokens of User : {}", login);
+        Instant now = Instant.now();
+        // Tokens hold their issue date in seconds, so a token issued during this second is kept: the user may log
+        // in again at once
+        Instant notBefore = now.truncatedTo(ChronoUnit.SECONDS);
+        TokenRevocation revocation = tokenRevocationRepository.save(TokenRevocation.ofUser(login, notBefore,
+            now.plusMillis(tokenValidityInMillisecondsForRememberMe)));
+        apply(revocation);
+    }
+
+    /**
+     * Purge the expired revocations, then load all the revocations in new filters, sized for them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.token-revocation.rebuild-delay:3600000}")
+    public void rebuild() {
+        Instant now = Instant.now();
+        List<TokenRevocation> revocations;
+        try {
+            int purged = tokenRevocationRepository.deleteByExpirationLessThanEqual(now);
+            revocations = tokenRevocationRepository.findAllByExpirationAfter(now);
+            log.debug("Purged {} expired token revocations, loaded {}", purged, revocations.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load the token revocations: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            long nowMillis = now.toEpochMilli();
+            revokedTokens.values().removeIf(expiration -> expiration <= nowMillis);
+            revokedUsers.values().removeIf(revocation -> revocation.expiration <= nowMillis);
+            revocations.forEach(this::put);
+
+            BloomFilter newTokenFilter = new BloomFilter(revokedTokens.size());
+            revokedTokens.keySet().forEach(newTokenFilter::add);
+            BloomFilter newUserFilter = new BloomFilter(revokedUsers.size());
+            revokedUsers.keySet().forEach(newUserFilter::add);
+            tokenFilter = newTokenFilter;
+            userFilter = newUserFilter;
+            if (lastSync == null) {
+                lastSync = now;
+            }
+        }
+    }
+
+    /**
+     * Apply the revocations made by the other instances. The revocations created shortly before the last poll are
+     * polled again, as they may have been committed after it.
+     * <p>
+     * Until the revocations could be loaded once, for instance because the database was not available at startup,
+     * each sync tries to load all of them instead.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${application.token-revocation.sync-delay:5000}")
+    public void sync() {
+        Instant since;
+        synchronized (this) {
+            since = lastSync == null ? null : lastSync.minusMillis(syncOverlap);
+        }
+        if (since == null) {
+            rebuild();
+            return;
+        }
+        Instant now = Instant.now();
+        List<TokenRevocation> revocations;
+        try {
+            revocations = tokenRevocationRepository.findAllByCreatedDateAfterAndExpirationAfter(since, now);
+        } catch (DataAccessException e) {
+            log.warn("Could not sync the token revocations: {}", e.getMessage());
+            return;
+        }
+        revocations.stream()
+            .map(TokenRevocation::getLogin)
+            .filter(Objects::nonNull)
+            .distinct()
+            .forEach(userDetailsCache::evict);
+        synchronized (this) {
+            revocations.forEach(this::apply);
+            if (now.isAfter(lastSync)) {
+                lastSync = now;
+            }
+        }
+    }
+
+    private synchronized void apply(TokenRevocation revocation) {
+        put(revocation);
+        if (revocation.getJti() != null) {
+            tokenFilter.add(revocation.getJti());
+        }
+        if (revocation.getLogin() != null) {
+            userFilter.add(revocation.getLogin());
+        }
+    }
+
+    /**
+     * Put a revocation in the maps, so it is checked once the filters contain it.
+     */
+    private void put(TokenRevocation revocation) {
+        long expiration = revocation.getExpiration().toEpochMilli();
+        if (revocation.getJti() != null) {
+            revokedTokens.merge(revocation.getJti(), expiration, Math::max);
+        }
+        if (revocation.getLogin() != null) {
+            revokedUsers.merge(revocation.getLogin(),
+                new UserRevocation(revocation.getNotBefore().toEpochMilli(), expiration), UserRevocation::merge);
+        }
+    }
+
+    private static class UserRevocation {
+
+        private final long notBefore;
+
+        private final long expiration;
+
+        UserRevocation(long notBefore, long expiration) {
+            this.notBefore = notBefore;
+            this.expiration = expiration;
+        }
+
+        UserRevocation merge(UserRevocation other) {
+            return new UserRevocation(Math.max(notBefore, other.notBefore), Math.max(expiration, other.expiration));
+        }
+    }
+}
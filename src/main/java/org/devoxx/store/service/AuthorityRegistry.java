@@ -0,0 +1,95 @@
+package org.devoxx.store.service;
+
+import org.devoxx.store.domain.Authority;
+import org.devoxx.store.repository.AuthorityRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the names of the authorities, so that users are written with references to their authorities, without
+ * reading them from the database.
+ * <p>
+ * The authorities are loaded once the application is ready, in an immutable set replaced as a whole. They are only
+ * changed by the administrators, so an unknown name reloads them, at most once per lookup.
+ * </p>
+ */
+@Service
+public class AuthorityRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private volatile Set<String> names;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+    }
+
+    /**
+     * Load the names of the authorities, replacing the previous ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        try {
+            names = Collections.unmodifiableSet(authorityRepository.findAll().stream()
+                .map(Authority::getName)
+                .collect(Collectors.toSet()));
+            log.debug("Loaded {} authorities", names.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load the authorities: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the unmodifiable set of the names of the authorities
+     */
+    public Set<String> getNames() {
+        Set<String> current = names;
+        if (current == null) {
+            refresh();
+            current = names;
+        }
+        return current == null ? Collections.emptySet() : current;
+    }
+
+    /**
+     * Get a reference to an authority, which is not read from the database to be associated to a user: it must be
+     * called in a transaction.
+     *
+     * @param name the name of the authority
+     * @return the reference to the authority, or empty if the authority does not exist
+     */
+    public Optional<Authority> getReference(String name) {
+        if (!getNames().contains(name)) {
+            refresh();
+            if (!getNames().contains(name)) {
+                log.warn("Unknown authority: {}", name);
+                return Optional.empty();
+            }
+        }
+        return Optional.of(authorityRepository.getOne(name));
+    }
+
+    /**
+     * @param names the names of authorities, of which the unknown ones are ignored
+     * @return the references to the authorities, see {@link #getReference(String)}
+     */
+    public Set<Authority> getReferences(Collection<String> names) {
+        Set<Authority> authorities = new HashSet<>();
+        names.forEach(name -> getReference(name).ifPresent(authorities::add));
+        return authorities;
+    }
+}
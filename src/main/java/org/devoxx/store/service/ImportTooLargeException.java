@@ -0,0 +1,15 @@
+package org.devoxx.store.service;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when an imported file is larger than the maximum size of the imports.
+ */
+public class ImportTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImportTooLargeException(long maxSize) {
+        super("The file is larger than " + maxSize + " bytes");
+    }
+}
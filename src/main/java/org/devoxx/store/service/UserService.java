@@ -2,25 +2,39 @@ package org.devoxx.store.service;
 
 import org.devoxx.store.domain.Authority;
 import org.devoxx.store.domain.User;
-import org.devoxx.store.repository.AuthorityRepository;
 import org.devoxx.store.config.Constants;
 import org.devoxx.store.repository.UserRepository;
 import org.devoxx.store.security.AuthoritiesConstants;
-import org.devoxx.store.security.SecurityUtils;
+import org.devoxx.store.security.CurrentUserHolder;
+import org.devoxx.store.security.DomainUserDetailsService;
+import org.devoxx.store.security.jwt.TokenRevocationService;
+import org.devoxx.store.service.lease.ClusterLock;
+import org.devoxx.store.service.lease.Partition;
 import org.devoxx.store.service.util.RandomUtil;
 import org.devoxx.store.service.dto.UserDTO;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing users.
@@ -31,16 +45,50 @@ public class UserService {
 
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
+    /**
+     * The number of not activated users deleted by each transaction of the purge.
+     */
+    private static final int PURGE_CHUNK_SIZE = 1000;
+
+    /**
+     * The validity of the reset keys.
+     */
+    private static final int RESET_KEY_VALIDITY_HOURS = 24;
+
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
+
+    private final TokenRevocationService tokenRevocationService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    /**
+     * The details of the users used to authenticate them, evicted once the current transaction is committed.
+     */
+    private final Cache userDetailsCache;
+
+    private final CurrentUserHolder currentUserHolder;
+
+    private final Meter purgedUsers;
+
+    private final Timer purgeDuration;
+
+    private final Meter expiredResetKeys;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRegistry authorityRegistry,
+                       TokenRevocationService tokenRevocationService, CacheManager cacheManager,
+                       CurrentUserHolder currentUserHolder, MetricRegistry metricRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
+        this.tokenRevocationService = tokenRevocationService;
+        this.currentUserHolder = currentUserHolder;
+        this.purgedUsers = metricRegistry.meter(MetricRegistry.name(UserService.class, "purge", "users"));
+        this.purgeDuration = metricRegistry.timer(MetricRegistry.name(UserService.class, "purge", "duration"));
+        this.expiredResetKeys = metricRegistry.meter(MetricRegistry.name(UserService.class, "reset-keys", "expired"));
+        this.userDetailsCache =
+            new TransactionAwareCacheDecorator(cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE));
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -50,6 +98,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
+                userDetailsCache.evict(user.getLogin());
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -60,19 +109,21 @@ public class UserService {
 
        return userRepository.findOneByResetKey(key)
             .filter(user -> {
-                ZonedDateTime oneDayAgo = ZonedDateTime.now().minusHours(24);
+                ZonedDateTime oneDayAgo = ZonedDateTime.now().minusHours(RESET_KEY_VALIDITY_HOURS);
                 return user.getResetDate().isAfter(oneDayAgo);
            })
            .map(user -> {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
+                tokenRevocationService.revokeTokensOf(user.getLogin());
+                userDetailsCache.evict(user.getLogin());
                 return user;
            });
     }
 
     public Optional<User> requestPasswordReset(String mail) {
-        return userRepository.findOneByEmail(mail)
+        return userRepository.findOneByEmail(StringUtils.lowerCase(mail, Locale.ENGLISH))
             .filter(User::getActivated)
             .map(user -> {
                 user.setResetKey(RandomUtil.generateResetKey());
@@ -81,12 +132,15 @@ public class UserService {
             });
     }
 
+    /**
+     * Register a user. The user is inserted at once, see {@link UserRepository#insert(User)}.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the login or the e-mail address are in use
+     */
     public User createUser(String login, String password, String firstName, String lastName, String email,
         String imageUrl, String langKey) {
 
         User newUser = new User();
-        Authority authority = authorityRepository.findOne(AuthoritiesConstants.USER);
-        Set<Authority> authorities = new HashSet<>();
         String encryptedPassword = passwordEncoder.encode(password);
         newUser.setLogin(login);
         // new user gets initially a generated password
@@ -100,13 +154,17 @@ public class UserService {
         newUser.setActivated(false);
         // new user gets registration key
         newUser.setActivationKey(RandomUtil.generateActivationKey());
-        authorities.add(authority);
-        newUser.setAuthorities(authorities);
-        userRepository.save(newUser);
+        newUser.setAuthorities(authorityRegistry.getReferences(Collections.singleton(AuthoritiesConstants.USER)));
+        userRepository.insert(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
 
+    /**
+     * Create a user, inserted at once like the registered users.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the login or the e-mail address are in use
+     */
     public User createUser(UserDTO userDTO) {
         User user = new User();
         user.setLogin(userDTO.getLogin());
@@ -120,18 +178,14 @@ public class UserService {
             user.setLangKey(userDTO.getLangKey());
         }
         if (userDTO.getAuthorities() != null) {
-            Set<Authority> authorities = new HashSet<>();
-            userDTO.getAuthorities().forEach(
-                authority -> authorities.add(authorityRepository.findOne(authority))
-            );
-            user.setAuthorities(authorities);
+            user.setAuthorities(authorityRegistry.getReferences(userDTO.getAuthorities()));
         }
         String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
         user.setPassword(encryptedPassword);
         user.setResetKey(RandomUtil.generateResetKey());
         user.setResetDate(ZonedDateTime.now());
         user.setActivated(true);
-        userRepository.save(user);
+        userRepository.insert(user);
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -140,7 +194,8 @@ public class UserService {
      * Update basic information (first name, last name, email, language) for the current user.
      */
     public void updateUser(String firstName, String lastName, String email, String langKey) {
-        userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin()).ifPresent(user -> {
+        // The current user is loaded at most once by the request, and forgotten if the changes are rolled back
+        currentUserHolder.getCurrentUserForUpdate().ifPresent(user -> {
             user.setFirstName(firstName);
             user.setLastName(lastName);
             user.setEmail(email);
@@ -156,6 +211,16 @@ public class UserService {
         return Optional.of(userRepository
             .findOne(userDTO.getId()))
             .map(user -> {
+                // The tokens hold the login and the authorities of the user
+                boolean revokeTokens = !user.getLogin().equals(userDTO.getLogin())
+                    || (user.getActivated() && !userDTO.isActivated())
+                    || !user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet())
+                        .equals(userDTO.getAuthorities());
+                if (revokeTokens) {
+                    tokenRevocationService.revokeTokensOf(user.getLogin());
+                }
+                userDetailsCache.evict(user.getLogin());
+                userDetailsCache.evict(userDTO.getLogin());
                 user.setLogin(userDTO.getLogin());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -165,9 +230,7 @@ public class UserService {
                 user.setLangKey(userDTO.getLangKey());
                 Set<Authority> managedAuthorities = user.getAuthorities();
                 managedAuthorities.clear();
-                userDTO.getAuthorities().stream()
-                    .map(authorityRepository::findOne)
-                    .forEach(managedAuthorities::add);
+                managedAuthorities.addAll(authorityRegistry.getReferences(userDTO.getAuthorities()));
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -177,14 +240,18 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
+            tokenRevocationService.revokeTokensOf(user.getLogin());
+            userDetailsCache.evict(user.getLogin());
             log.debug("Deleted User: {}", user);
         });
     }
 
     public void changePassword(String password) {
-        userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin()).ifPresent(user -> {
+        currentUserHolder.getCurrentUserForUpdate().ifPresent(user -> {
             String encryptedPassword = passwordEncoder.encode(password);
             user.setPassword(encryptedPassword);
+            tokenRevocationService.revokeTokensOf(user.getLogin());
+            userDetailsCache.evict(user.getLogin());
             log.debug("Changed password for User: {}", user);
         });
     }
@@ -194,6 +261,15 @@ public class UserService {
         return userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER).map(UserDTO::new);
     }
 
+    /**
+     * Get the managed users following a given login, ordered by login, without counting them.
+     */
+    @Transactional(readOnly = true)
+    public Slice<UserDTO> getAllManagedUsersAfter(String lastLogin, int size) {
+        return userRepository.findAllByLoginNotAndLoginGreaterThanOrderByLoginAsc(Constants.ANONYMOUS_USER,
+            lastLogin == null ? "" : lastLogin, new PageRequest(0, size)).map(UserDTO::new);
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneWithAuthoritiesByLogin(login);
@@ -206,7 +282,7 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public User getUserWithAuthorities() {
-        return userRepository.findOneWithAuthoritiesByLogin(SecurityUtils.getCurrentUserLogin()).orElse(null);
+        return currentUserHolder.getCurrentUser().orElse(null);
     }
 
 
@@ -215,14 +291,58 @@ public class UserService {
      * <p>
      * This is scheduled to get fired everyday, at 01:00 (am).
      * </p>
+     * <p>
+     * The users are deleted by chunks of ids, each one in its own transaction, so that neither the users nor the locks
+     * pile up: an interrupted purge leaves the remaining users to the next one. The ids are split in partitions,
+     * purged by the nodes of the cluster.
+     * </p>
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @ClusterLock(value = "removeNotActivatedUsers", partitions = 4)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void removeNotActivatedUsers() {
-        ZonedDateTime now = ZonedDateTime.now();
-        List<User> users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minusDays(3));
-        for (User user : users) {
-            log.debug("Deleting not activated user {}", user.getLogin());
-            userRepository.delete(user);
+        ZonedDateTime createdBefore = ZonedDateTime.now().minusDays(3);
+        Partition partition = Partition.current();
+        PageRequest chunk = new PageRequest(0, PURGE_CHUNK_SIZE);
+        int deleted = 0;
+        try (Timer.Context ignored = purgeDuration.time()) {
+            List<Long> ids = userRepository.findIdsOfNotActivatedUsersCreatedBefore(createdBefore, 0L,
+                partition.getCount(), partition.getIndex(), chunk);
+            while (!ids.isEmpty()) {
+                int chunkDeleted = userRepository.deleteNotActivatedUsers(ids);
+                purgedUsers.mark(chunkDeleted);
+                deleted += chunkDeleted;
+                log.debug("Deleted {} not activated users", chunkDeleted);
+                ids = ids.size() < PURGE_CHUNK_SIZE ? Collections.emptyList() : userRepository
+                    .findIdsOfNotActivatedUsersCreatedBefore(createdBefore, ids.get(ids.size() - 1),
+                        partition.getCount(), partition.getIndex(), chunk);
+            }
+        }
+        log.info("Deleted {} not activated users created before {}, in {}", deleted, createdBefore, partition);
+    }
+
+    /**
+     * Expired reset keys are cleared, so that the index on the reset keys only holds the valid ones.
+     * <p>
+     * This is scheduled to get fired every hour. The keys are cleared by chunks of users, each one in its own
+     * transaction, like the not activated users are deleted.
+     * </p>
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    @ClusterLock("removeExpiredResetKeys")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void removeExpiredResetKeys() {
+        ZonedDateTime issuedBefore = ZonedDateTime.now().minusHours(RESET_KEY_VALIDITY_HOURS);
+        PageRequest chunk = new PageRequest(0, PURGE_CHUNK_SIZE);
+        int cleared = 0;
+        List<Long> ids = userRepository.findIdsOfResetKeysIssuedBefore(issuedBefore, 0L, chunk);
+        while (!ids.isEmpty()) {
+            int chunkCleared = userRepository.clearResetKeys(ids, issuedBefore);
+            expiredResetKeys.mark(chunkCleared);
+            cleared += chunkCleared;
+            ids = ids.size() < PURGE_CHUNK_SIZE ? Collections.emptyList() : userRepository
+                .findIdsOfResetKeysIssuedBefore(issuedBefore, ids.get(ids.size() - 1), chunk);
         }
+        log.debug("Cleared {} reset keys issued before {}", cleared, issuedBefore);
     }
 }
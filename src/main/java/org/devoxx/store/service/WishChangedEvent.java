@@ -0,0 +1,131 @@
+package org.devoxx.store.service;
+
+import org.devoxx.store.domain.Wish;
+import org.devoxx.store.domain.User;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by WishService when a wish is created, updated or deleted, with the state of the wish before and after
+ * the change.
+ * <p>
+ * The event is published inside the transaction of the change: listeners which must only see committed changes
+ * should use a {@link org.springframework.transaction.event.TransactionalEventListener}.
+ * </p>
+ */
+public class WishChangedEvent {
+
+    private final long wishId;
+
+    private final WishState previous;
+
+    private final WishState current;
+
+    public WishChangedEvent(long wishId, WishState previous, WishState current) {
+        this.wishId = wishId;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public long getWishId() {
+        return wishId;
+    }
+
+    /**
+     * The state of the wish before the change, or null if the wish was created.
+     */
+    public WishState getPrevious() {
+        return previous;
+    }
+
+    /**
+     * The state of the wish after the change, or null if the wish was deleted.
+     */
+    public WishState getCurrent() {
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return "WishChangedEvent{" +
+            "wishId=" + wishId +
+            ", previous=" + previous +
+            ", current=" + current +
+            "}";
+    }
+
+    /**
+     * The state of a wish, detached from the entity so it can be read after the transaction.
+     */
+    public static class WishState {
+
+        private final long productId;
+
+        private final BigDecimal price;
+
+        private final Long wishlistId;
+
+        private final Long userId;
+
+        private final String userLogin;
+
+        public WishState(long productId, BigDecimal price, Long wishlistId, Long userId, String userLogin) {
+            this.productId = productId;
+            this.price = price;
+            this.wishlistId = wishlistId;
+            this.userId = userId;
+            this.userLogin = userLogin;
+        }
+
+        /**
+         * @param wish a wish read from the database, with its wishlist and the user of its wishlist
+         */
+        public static WishState of(Wish wish) {
+            return of(wish, wish.getWishlist() == null ? null : wish.getWishlist().getUser());
+        }
+
+        /**
+         * @param wish a wish, of which only the id of the wishlist is read
+         * @param user the user of the wishlist of the wish, or null
+         */
+        public static WishState of(Wish wish, User user) {
+            return new WishState(wish.getProductId(), wish.getPrice(),
+                wish.getWishlist() == null ? null : wish.getWishlist().getId(),
+                user == null ? null : user.getId(), user == null ? null : user.getLogin());
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public Long getWishlistId() {
+            return wishlistId;
+        }
+
+        /**
+         * The id of the user of the wishlist, or null if the wish does not belong to a wishlist of a user.
+         */
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getUserLogin() {
+            return userLogin;
+        }
+
+        @Override
+        public String toString() {
+            return "WishState{" +
+                "productId=" + productId +
+                ", price=" + price +
+                ", wishlistId=" + wishlistId +
+                ", userId=" + userId +
+                ", userLogin='" + userLogin + "'" +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package org.devoxx.store.service;
+
+import org.devoxx.store.config.ApplicationProperties;
+import org.devoxx.store.domain.Wish;
+import org.devoxx.store.domain.Wishlist;
+import org.devoxx.store.service.dto.WishImportReportDTO;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing wishes from CSV files.
+ * <p>
+ * An import is a pipeline of three stages: the calling thread parses the rows, a validator thread checks them
+ * against the bean validation constraints of {@link Wish} and groups the valid ones in batches, and a writer thread
+ * saves each batch in its own transaction. The stages are connected by bounded queues, so a slow database slows down
+ * parsing instead of filling the heap.
+ * </p>
+ * <p>
+ * The validator and writer threads are taken from the "wishImportExecutor" pool, which rejects the imports once it
+ * is full.
+ * </p>
+ * <p>
+ * The file must start with a header naming its "productId", "price" and, optionally, "wishlistId" columns. Its
+ * size is counted while it is read, so that its length does not need to be known in advance: an import stops once
+ * the file is larger than the maximum size, leaving the batches saved so far.
+ * </p>
+ */
+@Service
+public class WishImportService {
+
+    private static final String PRODUCT_ID_COLUMN = "productId";
+
+    private static final String PRICE_COLUMN = "price";
+
+    private static final String WISHLIST_ID_COLUMN = "wishlistId";
+
+    private static final Row END_OF_ROWS = new Row(-1, null);
+
+    private static final List<Row> END_OF_BATCHES = new ArrayList<>(0);
+
+    /**
+     * The error reported for a row which could not be saved, whose cause is only logged as it comes from the database.
+     */
+    static final String SAVE_ERROR = "The row could not be saved, check that its wishlist exists";
+
+    private final Logger log = LoggerFactory.getLogger(WishImportService.class);
+
+    private final WishService wishService;
+
+    private final ApplicationProperties.WishImport properties;
+
+    private final Validator validator;
+
+    private final AsyncTaskExecutor executor;
+
+    private final Meter importedRows;
+
+    private final Meter rejectedRows;
+
+    private final Timer batches;
+
+    public WishImportService(WishService wishService, ApplicationProperties applicationProperties,
+            Validator validator, @Qualifier("wishImportExecutor") AsyncTaskExecutor executor,
+            MetricRegistry metricRegistry) {
+
+        this.wishService = wishService;
+        this.properties = applicationProperties.getWishImport();
+        this.validator = validator;
+        this.executor = executor;
+        this.importedRows = metricRegistry.meter(MetricRegistry.name(WishImportService.class, "imported"));
+        this.rejectedRows = metricRegistry.meter(MetricRegistry.name(WishImportService.class, "rejected"));
+        this.batches = metricRegistry.timer(MetricRegistry.name(WishImportService.class, "batches"));
+    }
+
+    /**
+     * @return the maximum size of an imported file, in bytes
+     */
+    public long getMaxFileSize() {
+        return properties.getMaxFileSize();
+    }
+
+    /**
+     * Import the wishes of a CSV file.
+     *
+     * @param input the content of the file
+     * @return the report of the import
+     * @throws IOException if the file could not be read
+     * @throws ImportTooLargeException if the file is larger than the maximum size
+     * @throws IllegalArgumentException if the header of the file is not valid
+     * @throws RejectedExecutionException if too many imports are running
+     */
+    public WishImportReportDTO importCsv(InputStream input) throws IOException {
+        long start = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new SizeLimitedInputStream(input, properties.getMaxFileSize()), StandardCharsets.UTF_8));
+        Map<String, Integer> columns = parseHeader(reader.readLine());
+        ImportReport report = new ImportReport(properties.getMaxReportedErrors());
+        BlockingQueue<Row> rows = new ArrayBlockingQueue<>(properties.getBatchSize());
+        BlockingQueue<List<Row>> batchQueue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Future<Void> writing = executor.submit(() -> write(batchQueue, report));
+        Future<Void> validation;
+        try {
+            validation = executor.submit(() -> validate(rows, batchQueue, writing, report));
+        } catch (RejectedExecutionException e) {
+            writing.cancel(true);
+            throw e;
+        }
+        try {
+            if (parse(reader, columns, rows, validation, report)) {
+                put(rows, END_OF_ROWS, validation);
+            }
+            validation.get();
+            writing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Wish import was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Wish import failed", e.getCause());
+        } finally {
+            validation.cancel(true);
+            writing.cancel(true);
+        }
+        WishImportReportDTO result = report.toDTO(System.currentTimeMillis() - start);
+        log.info("Imported wishes: {}", result);
+        return result;
+    }
+
+    private Map<String, Integer> parseHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim(), i);
+        }
+        if (!columns.containsKey(PRODUCT_ID_COLUMN) || !columns.containsKey(PRICE_COLUMN)) {
+            throw new IllegalArgumentException("The header must name the " + PRODUCT_ID_COLUMN + " and " +
+                PRICE_COLUMN + " columns");
+        }
+        return columns;
+    }
+
+    /**
+     * First stage: parse the rows, and hand them to the validator.
+     *
+     * @return false if the validator stopped before all the rows were parsed
+     */
+    private boolean parse(BufferedReader reader, Map<String, Integer> columns, BlockingQueue<Row> rows,
+        Future<?> validation, ImportReport report) throws IOException, InterruptedException {
+
+        long line = 1;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            Wish wish;
+            try {
+                wish = parseWish(text.split(",", -1), columns);
+            } catch (IllegalArgumentException e) {
+                report.reject(line, e.getMessage());
+                continue;
+            }
+            if (!put(rows, new Row(line, wish), validation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Wish parseWish(String[] fields, Map<String, Integer> columns) {
+        if (fields.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns but found " + fields.length);
+        }
+        Wish wish = new Wish();
+        String productId = fields[columns.get(PRODUCT_ID_COLUMN)].trim();
+        wish.setProductId(productId.isEmpty() ? null : Long.valueOf(productId));
+        String price = fields[columns.get(PRICE_COLUMN)].trim();
+        wish.setPrice(price.isEmpty() ? null : new BigDecimal(price));
+        Integer wishlistColumn = columns.get(WISHLIST_ID_COLUMN);
+        if (wishlistColumn != null && !fields[wishlistColumn].trim().isEmpty()) {
+            Wishlist wishlist = new Wishlist();
+            wishlist.setId(Long.valueOf(fields[wishlistColumn].trim()));
+            wish.setWishlist(wishlist);
+        }
+        return wish;
+    }
+
+    /**
+     * Second stage: validate the rows, and hand batches of valid rows to the writer.
+     */
+    private Void validate(BlockingQueue<Row> rows, BlockingQueue<List<Row>> batchQueue, Future<?> writing,
+        ImportReport report) throws InterruptedException {
+
+        List<Row> batch = new ArrayList<>(properties.getBatchSize());
+        Row row;
+        while ((row = rows.take()) != END_OF_ROWS) {
+            Set<ConstraintViolation<Wish>> violations = validator.validate(row.wish);
+            if (!violations.isEmpty()) {
+                report.reject(row.line, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", ")));
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == properties.getBatchSize()) {
+                if (!put(batchQueue, batch, writing)) {
+                    return null;
+                }
+                batch = new ArrayList<>(properties.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty() && !put(batchQueue, batch, writing)) {
+            return null;
+        }
+        put(batchQueue, END_OF_BATCHES, writing);
+        return null;
+    }
+
+    /**
+     * Third stage: save each batch in its own transaction.
+     */
+    private Void write(BlockingQueue<List<Row>> batchQueue, ImportReport report) throws InterruptedException {
+        List<Row> batch;
+        while ((batch = batchQueue.take()) != END_OF_BATCHES) {
+            Timer.Context context = batches.time();
+            try {
+                writeBatch(batch, report);
+            } finally {
+                context.stop();
+            }
+        }
+        return null;
+    }
+
+    private void writeBatch(List<Row> batch, ImportReport report) {
+        try {
+            wishService.saveAll(batch.stream().map(row -> row.wish).collect(Collectors.toList()));
+            report.imported(batch.size());
+        } catch (RuntimeException e) {
+            // Typically a wishlist that does not exist: save the rows one by one to find out which ones fail
+            log.debug("Could not save a batch of {} wishes, saving them one by one: {}", batch.size(), e.getMessage());
+            for (Row row : batch) {
+                row.wish.setId(null);
+                try {
+                    wishService.save(row.wish);
+                    report.imported(1);
+                } catch (RuntimeException rowException) {
+                    log.debug("Could not save the wish of line {}: {}", row.line, rowException.getMessage());
+                    report.reject(row.line, SAVE_ERROR);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hand an element to the next stage, waiting for room in its queue as long as that stage is running.
+     *
+     * @return false if the next stage stopped
+     */
+    private static <T> boolean put(BlockingQueue<T> queue, T element, Future<?> consumer) throws InterruptedException {
+        while (!queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+            if (consumer.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Row {
+
+        private final long line;
+
+        private final Wish wish;
+
+        Row(long line, Wish wish) {
+            this.line = line;
+            this.wish = wish;
+        }
+    }
+
+    private class ImportReport {
+
+        private final AtomicLong importedCount = new AtomicLong();
+
+        private final AtomicLong rejectedCount = new AtomicLong();
+
+        private final int maxReportedErrors;
+
+        private final List<WishImportReportDTO.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        ImportReport(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void imported(int count) {
+            importedCount.addAndGet(count);
+            importedRows.mark(count);
+        }
+
+        void reject(long line, String message) {
+            if (rejectedCount.incrementAndGet() <= maxReportedErrors) {
+                errors.add(new WishImportReportDTO.RowError(line, message));
+            }
+            rejectedRows.mark();
+        }
+
+        WishImportReportDTO toDTO(long durationInMilliseconds) {
+            List<WishImportReportDTO.RowError> sortedErrors = new ArrayList<>(errors);
+            sortedErrors.sort(Comparator.comparingLong(WishImportReportDTO.RowError::getLine));
+            return new WishImportReportDTO(importedCount.get(), rejectedCount.get(), durationInMilliseconds,
+                sortedErrors);
+        }
+    }
+
+    /**
+     * Counts the bytes read, and fails once they exceed the maximum size.
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+
+        private long size;
+
+        SizeLimitedInputStream(InputStream input, long maxSize) {
+            super(input);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) throws ImportTooLargeException {
+            size += bytes;
+            if (size > maxSize) {
+                throw new ImportTooLargeException(maxSize);
+            }
+        }
+    }
+}
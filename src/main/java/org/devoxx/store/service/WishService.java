@@ -1,15 +1,33 @@
 package org.devoxx.store.service;
 
+import org.devoxx.store.domain.User;
 import org.devoxx.store.domain.Wish;
 import org.devoxx.store.repository.WishRepository;
+import org.devoxx.store.repository.WishlistRepository;
+import org.devoxx.store.service.WishChangedEvent.WishState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service Implementation for managing Wish.
@@ -22,19 +40,94 @@ public class WishService {
     
     private final WishRepository wishRepository;
 
-    public WishService(WishRepository wishRepository) {
+    private final WishlistRepository wishlistRepository;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public WishService(WishRepository wishRepository, WishlistRepository wishlistRepository,
+        EntityManager entityManager, ApplicationEventPublisher eventPublisher) {
         this.wishRepository = wishRepository;
+        this.wishlistRepository = wishlistRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Save a wish.
+     * Save a wish, update the totals of its wishlist, and publish a {@link WishChangedEvent}.
+     * <p>
+     * The totals are updated with the difference between the wish and its stored state, so the wish must not be
+     * managed by the current persistence context, as wishes sent by clients are.
+     * </p>
      *
      * @param wish the entity to save
      * @return the persisted entity
      */
     public Wish save(Wish wish) {
         log.debug("Request to save Wish : {}", wish);
+        // Locked, so that a concurrent change of the wish cannot be applied to the totals with the same previous state
+        Wish stored = wish.getId() == null ? null : wishRepository.findOneForUpdate(wish.getId());
+        // Read before saving, as saving copies the wish into the stored entity
+        WishState previous = stored == null ? null : WishState.of(stored);
         Wish result = wishRepository.save(wish);
+        Long wishlistId = result.getWishlist() == null ? null : result.getWishlist().getId();
+        WishState current;
+        if (previous != null && wishlistId != null && wishlistId.equals(previous.getWishlistId())) {
+            current = new WishState(result.getProductId(), result.getPrice(), wishlistId, previous.getUserId(),
+                previous.getUserLogin());
+        } else {
+            // The wishlist of a new wish is usually not loaded, so its user is looked up
+            current = WishState.of(result, findUsersOfWishlists(Collections.singleton(wishlistId)).get(wishlistId));
+        }
+        if (previous != null && previous.getWishlistId() != null && previous.getWishlistId().equals(wishlistId)) {
+            BigDecimal priceDelta = current.getPrice().subtract(previous.getPrice());
+            if (priceDelta.signum() != 0) {
+                wishlistRepository.addToTotals(wishlistId, 0, priceDelta);
+            }
+        } else {
+            Map<Long, Runnable> updates = new TreeMap<>();
+            if (previous != null && previous.getWishlistId() != null) {
+                updates.put(previous.getWishlistId(), () ->
+                    wishlistRepository.addToTotals(previous.getWishlistId(), -1, previous.getPrice().negate()));
+            }
+            if (wishlistId != null) {
+                updates.put(wishlistId, () -> wishlistRepository.addToTotals(wishlistId, 1, current.getPrice()));
+            }
+            // Ordered by id, so that wishes moved in both directions between two wishlists cannot deadlock
+            updates.values().forEach(Runnable::run);
+        }
+        eventPublisher.publishEvent(new WishChangedEvent(result.getId(), previous, current));
+        return result;
+    }
+
+    /**
+     * Save a list of new wishes, inserting them in JDBC batches, and publish a {@link WishChangedEvent} for each.
+     *
+     * @param wishes the entities to save
+     * @return the persisted entities, in the same order
+     */
+    public List<Wish> saveAll(List<Wish> wishes) {
+        log.debug("Request to save {} Wishes", wishes.size());
+        List<Wish> result = wishRepository.save(wishes);
+        wishRepository.flush();
+        Map<Long, User> users = findUsersOfWishlists(result.stream()
+            .map(wish -> wish.getWishlist() == null ? null : wish.getWishlist().getId())
+            .collect(Collectors.toSet()));
+        Map<Long, BigDecimal> totalPrices = new TreeMap<>();
+        Map<Long, Long> wishCounts = new HashMap<>();
+        for (Wish wish : result) {
+            WishState current = WishState.of(wish, wish.getWishlist() == null ? null :
+                users.get(wish.getWishlist().getId()));
+            Long wishlistId = current.getWishlistId();
+            if (wishlistId != null) {
+                totalPrices.merge(wishlistId, current.getPrice(), BigDecimal::add);
+                wishCounts.merge(wishlistId, 1L, Long::sum);
+            }
+            eventPublisher.publishEvent(new WishChangedEvent(wish.getId(), null, current));
+        }
+        totalPrices.forEach((wishlistId, totalPrice) ->
+            wishlistRepository.addToTotals(wishlistId, wishCounts.get(wishlistId), totalPrice));
         return result;
     }
 
@@ -47,10 +140,77 @@ public class WishService {
     @Transactional(readOnly = true)
     public Page<Wish> findAll(Pageable pageable) {
         log.debug("Request to get all Wishes");
-        Page<Wish> result = wishRepository.findAll(pageable);
+        Page<Wish> result = wishRepository.findAllWithWishlistBy(pageable);
         return result;
     }
 
+    /**
+     *  Get the wishes of a wishlist.
+     *
+     *  @param wishlistId the id of the wishlist
+     *  @param pageable the pagination information
+     *  @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Wish> findByWishlist(Long wishlistId, Pageable pageable) {
+        log.debug("Request to get Wishes of Wishlist : {}", wishlistId);
+        return wishRepository.findByWishlistId(wishlistId, pageable);
+    }
+
+    /**
+     *  Get the wishes of a product.
+     *
+     *  @param productId the id of the product
+     *  @param pageable the pagination information
+     *  @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Wish> findByProduct(Long productId, Pageable pageable) {
+        log.debug("Request to get Wishes of product : {}", productId);
+        return wishRepository.findByProductId(productId, pageable);
+    }
+
+    /**
+     *  Get the wishes following a given id, ordered by id, without counting them.
+     *
+     *  @param lastId the id of the last wish of the previous slice, or null for the first slice
+     *  @param size the maximum number of wishes to return
+     *  @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<Wish> findAllAfter(Long lastId, int size) {
+        log.debug("Request to get Wishes after : {}", lastId);
+        return wishRepository.findByIdGreaterThanOrderByIdAsc(lastId == null ? Long.MIN_VALUE : lastId,
+            new PageRequest(0, size));
+    }
+
+    /**
+     *  Stream all the wishes, or all the wishes of a wishlist, ordered by id.
+     *  <p>
+     *  Wishes are read from a database cursor, and the persistence context is cleared as they are consumed,
+     *  so memory usage does not depend on the number of wishes.
+     *  </p>
+     *
+     *  @param wishlistId the id of the wishlist, or null for all the wishes
+     *  @param consumer the consumer of the wishes, which must not keep references to them
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(Long wishlistId, Consumer<Wish> consumer) {
+        log.debug("Request to export Wishes of Wishlist : {}", wishlistId);
+        try (Stream<Wish> wishes = wishlistId == null ?
+            wishRepository.streamAllBy() : wishRepository.streamByWishlistId(wishlistId)) {
+            Iterator<Wish> iterator = wishes.iterator();
+            long count = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++count % WishRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+            log.debug("Exported {} Wishes", count);
+        }
+    }
+
     /**
      *  Get one wish by id.
      *
@@ -60,17 +220,43 @@ public class WishService {
     @Transactional(readOnly = true)
     public Wish findOne(Long id) {
         log.debug("Request to get Wish : {}", id);
-        Wish wish = wishRepository.findOne(id);
+        Wish wish = wishRepository.findOneWithWishlistById(id);
         return wish;
     }
 
     /**
-     *  Delete the  wish by id.
+     *  Delete the  wish by id, update the totals of its wishlist, and publish a {@link WishChangedEvent}.
      *
      *  @param id the id of the entity
      */
     public void delete(Long id) {
         log.debug("Request to delete Wish : {}", id);
-        wishRepository.delete(id);
+        Wish wish = wishRepository.findOneForUpdate(id);
+        if (wish == null) {
+            // Fail as the repository does
+            wishRepository.delete(id);
+            return;
+        }
+        WishState previous = WishState.of(wish);
+        wishRepository.delete(wish);
+        if (previous.getWishlistId() != null) {
+            wishlistRepository.addToTotals(previous.getWishlistId(), -1, previous.getPrice().negate());
+        }
+        eventPublisher.publishEvent(new WishChangedEvent(id, previous, null));
+    }
+
+    /**
+     * @param wishlistIds the ids of wishlists, which may contain null
+     * @return the user of each wishlist, for the wishlists which have a user
+     */
+    private Map<Long, User> findUsersOfWishlists(Set<Long> wishlistIds) {
+        Map<Long, User> users = new HashMap<>();
+        Set<Long> ids = wishlistIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (!ids.isEmpty()) {
+            for (Object[] row : wishlistRepository.findUsersByIdIn(ids)) {
+                users.put((Long) row[0], (User) row[1]);
+            }
+        }
+        return users;
     }
 }
@@ -0,0 +1,152 @@
+package org.devoxx.store.service;
+
+import org.devoxx.store.domain.Wishlist;
+import org.devoxx.store.repository.WishlistRepository;
+import org.devoxx.store.service.WishChangedEvent.WishState;
+import org.devoxx.store.service.dto.WishlistSummaryDTO;
+import org.devoxx.store.service.lease.ClusterLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Service Implementation for managing Wishlist.
+ */
+@Service
+@Transactional
+public class WishlistService {
+
+    /**
+     * The cache of the wishlists of each user, by login.
+     * <p>
+     * It holds the Wishlist entities loaded by the persistence context, with their User, by reference rather than by
+     * copy: all the readers share them, so they must not be changed.
+     * </p>
+     * <p>
+     * The cache is local to each node, and only evicted by the changes made on the same node: the wishlists of a user
+     * changed by another node are returned until they expire. Their time to live is thus a few seconds, enough to
+     * serve the repeated loads of a page, but short enough for a user whose requests are spread over the nodes.
+     * </p>
+     */
+    public static final String WISHLISTS_BY_USER_CACHE = "wishlistsByUser";
+
+    private final Logger log = LoggerFactory.getLogger(WishlistService.class);
+
+    private final WishlistRepository wishlistRepository;
+
+    private final Cache wishlistsByUserCache;
+
+    /**
+     * Evicts once the current transaction is committed, so a concurrent read cannot cache the previous state again.
+     */
+    private final Cache transactionalWishlistsByUserCache;
+
+    public WishlistService(WishlistRepository wishlistRepository, CacheManager cacheManager) {
+        this.wishlistRepository = wishlistRepository;
+        this.wishlistsByUserCache = cacheManager.getCache(WISHLISTS_BY_USER_CACHE);
+        this.transactionalWishlistsByUserCache = new TransactionAwareCacheDecorator(wishlistsByUserCache);
+    }
+
+    /**
+     * Save a wishlist, and evict the cached wishlists of its previous and current users.
+     *
+     * @param wishlist the entity to save
+     * @return the persisted entity
+     */
+    public Wishlist save(Wishlist wishlist) {
+        log.debug("Request to save Wishlist : {}", wishlist);
+        if (wishlist.getId() != null) {
+            evictWishlistsOfUser(wishlistRepository.findUserLoginById(wishlist.getId()));
+        }
+        Wishlist result = wishlistRepository.save(wishlist);
+        // The user of a new wishlist is usually not loaded
+        evictWishlistsOfUser(wishlistRepository.findUserLoginById(result.getId()));
+        return result;
+    }
+
+    /**
+     *  Get the wishlists of a user.
+     *
+     *  @param login the login of the user
+     *  @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = WISHLISTS_BY_USER_CACHE, condition = "#login != null")
+    public List<Wishlist> findByUser(String login) {
+        log.debug("Request to get the Wishlists of User : {}", login);
+        return wishlistRepository.findByUserLogin(login);
+    }
+
+    /**
+     *  Get the number of wishes of a wishlist and the sum of their prices, without reading the wishes.
+     *
+     *  @param id the id of the wishlist
+     *  @return the summary, or null if the wishlist does not exist
+     */
+    @Transactional(readOnly = true)
+    public WishlistSummaryDTO findSummary(Long id) {
+        log.debug("Request to get the summary of Wishlist : {}", id);
+        return wishlistRepository.findSummaryById(id);
+    }
+
+    /**
+     *  Delete the wishlist by id, and evict the cached wishlists of its user.
+     *
+     *  @param id the id of the entity
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete Wishlist : {}", id);
+        evictWishlistsOfUser(wishlistRepository.findUserLoginById(id));
+        wishlistRepository.delete(id);
+    }
+
+    /**
+     * The cached wishlists hold the totals of their wishes, so a committed change of a wish evicts the wishlists of
+     * its users.
+     */
+    @TransactionalEventListener
+    public void onWishChanged(WishChangedEvent event) {
+        evictWishlistsOfUser(wishlistsByUserCache, event.getPrevious());
+        evictWishlistsOfUser(wishlistsByUserCache, event.getCurrent());
+    }
+
+    /**
+     * The totals of the wishlists are maintained by WishService, but changes made outside of the application
+     * make them drift.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:30 (am).
+     * </p>
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    @ClusterLock("reconcileTotals")
+    public void reconcileTotals() {
+        int fixed = wishlistRepository.reconcileTotals();
+        if (fixed > 0) {
+            log.warn("Fixed the totals of {} wishlists", fixed);
+            wishlistsByUserCache.clear();
+        } else {
+            log.debug("The totals of all the wishlists are correct");
+        }
+    }
+
+    private void evictWishlistsOfUser(String login) {
+        if (login != null) {
+            transactionalWishlistsByUserCache.evict(login);
+        }
+    }
+
+    private static void evictWishlistsOfUser(Cache cache, WishState state) {
+        if (state != null && state.getUserLogin() != null) {
+            cache.evict(state.getUserLogin());
+        }
+    }
+}
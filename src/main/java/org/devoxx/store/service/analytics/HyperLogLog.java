@@ -0,0 +1,67 @@
+package org.devoxx.store.service.analytics;
+
+/**
+ * A HyperLogLog sketch, estimating the number of distinct values added to it with a fixed amount of memory.
+ * <p>
+ * With a precision p, it uses 2^p bytes and has a standard error of about 1.04 / sqrt(2^p). Values cannot be
+ * removed. This class is not thread-safe.
+ * </p>
+ */
+final class HyperLogLog {
+
+    private final int precision;
+
+    private final byte[] registers;
+
+    /**
+     * @param precision the number of bits of the hash used to select a register, between 4 and 16
+     */
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("The precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add(long value) {
+        long hash = hash(value);
+        int register = (int) (hash >>> (64 - precision));
+        // The guard bit bounds the rank when the remaining bits are all zeros
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads ids over all the bits.
+     */
+    private static long hash(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,125 @@
+package org.devoxx.store.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from long keys to positive int values, which does not box its keys and values.
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+final class LongIntHashMap {
+
+    static final int NO_VALUE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+
+    /**
+     * The value of each slot, or NO_VALUE for empty slots.
+     */
+    private int[] values;
+
+    private int mask;
+
+    private int size;
+
+    LongIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Remove all the keys, and release the memory of the slots.
+     */
+    void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @return the value of the key, or NO_VALUE if the key is not in the map
+     */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == NO_VALUE) {
+                return NO_VALUE;
+            }
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must be positive: " + value);
+        }
+        int slot = slot(key);
+        while (values[slot] != NO_VALUE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == NO_VALUE) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (size * 4 > values.length * 3) {
+            rehash(values.length * 2);
+        }
+    }
+
+    /**
+     * @return the value of the removed key, or NO_VALUE if the key was not in the map
+     */
+    int remove(long key) {
+        int gap = slot(key);
+        while (values[gap] != NO_VALUE && keys[gap] != key) {
+            gap = (gap + 1) & mask;
+        }
+        int value = values[gap];
+        if (value == NO_VALUE) {
+            return NO_VALUE;
+        }
+        // Shift back the following keys of the cluster which cannot be found anymore once the slot is emptied
+        for (int slot = (gap + 1) & mask; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot]);
+            boolean reachable = gap <= slot ? gap < home && home <= slot : gap < home || home <= slot;
+            if (!reachable) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = NO_VALUE;
+        size--;
+        return value;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.devoxx.store.service.analytics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The Space-Saving summary of the most frequent items of a stream, with a fixed number of counters.
+ * <p>
+ * When all the counters are used, a new item takes the counter of the least frequent item, and inherits its count
+ * as a possible overestimation: the count of an item is never underestimated, and is overestimated by at most its
+ * error. Decrements are supported for the items which are counted, a counter reaching zero being released.
+ * </p>
+ * <p>
+ * Counters are kept in a binary min-heap of counts, so updates cost O(log capacity). This class is not
+ * thread-safe.
+ * </p>
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+
+    private final LongConsumer releaseListener;
+
+    private final LongIntHashMap positionsByItem = new LongIntHashMap();
+
+    private final long[] items;
+
+    private final long[] counts;
+
+    private final long[] errors;
+
+    private int size;
+
+    /**
+     * @param capacity the number of counters
+     * @param releaseListener called with the items which are not counted anymore
+     */
+    SpaceSaving(int capacity, LongConsumer releaseListener) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.releaseListener = releaseListener;
+        this.items = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    void increment(long item) {
+        int position = positionsByItem.get(item);
+        if (position != LongIntHashMap.NO_VALUE) {
+            counts[position]++;
+            siftDown(position);
+        } else if (size < capacity) {
+            position = size++;
+            set(position, item, 1, 0);
+            siftUp(position);
+        } else {
+            long released = items[0];
+            positionsByItem.remove(released);
+            set(0, item, counts[0] + 1, counts[0]);
+            siftDown(0);
+            releaseListener.accept(released);
+        }
+    }
+
+    void decrement(long item) {
+        int position = positionsByItem.get(item);
+        if (position == LongIntHashMap.NO_VALUE) {
+            return;
+        }
+        if (--counts[position] == 0) {
+            positionsByItem.remove(item);
+            int last = --size;
+            if (position != last) {
+                set(position, items[last], counts[last], errors[last]);
+                siftDown(position);
+                siftUp(position);
+            }
+            releaseListener.accept(item);
+        } else {
+            errors[position] = Math.min(errors[position], counts[position]);
+            siftUp(position);
+        }
+    }
+
+    /**
+     * Remove all the counters, without calling the release listener.
+     */
+    void clear() {
+        positionsByItem.clear();
+        size = 0;
+    }
+
+    boolean contains(long item) {
+        return positionsByItem.get(item) != LongIntHashMap.NO_VALUE;
+    }
+
+    /**
+     * @return the count of the item, which may be overestimated by its error, or 0 if the item is not counted
+     */
+    long getCount(long item) {
+        int position = positionsByItem.get(item);
+        return position == LongIntHashMap.NO_VALUE ? 0 : counts[position];
+    }
+
+    /**
+     * @return the maximum overestimation of the count of the item, or 0 if the item is not counted
+     */
+    long getError(long item) {
+        int position = positionsByItem.get(item);
+        return position == LongIntHashMap.NO_VALUE ? 0 : errors[position];
+    }
+
+    /**
+     * @param limit the maximum number of items
+     * @return the items with the highest counts, in descending order of count
+     */
+    long[] getTop(int limit) {
+        return IntStream.range(0, size).boxed()
+            .sorted(Comparator.comparingLong((Integer position) -> counts[position]).reversed())
+            .limit(limit)
+            .mapToLong(position -> items[position])
+            .toArray();
+    }
+
+    private void set(int position, long item, long count, long error) {
+        items[position] = item;
+        counts[position] = count;
+        errors[position] = error;
+        positionsByItem.put(item, position);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if (counts[child] < counts[smallest]) {
+                    smallest = child;
+                }
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        long item = items[first];
+        long count = counts[first];
+        long error = errors[first];
+        set(first, items[second], counts[second], errors[second]);
+        set(second, item, count, error);
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceSaving{" +
+            "capacity=" + capacity +
+            ", items=" + Arrays.toString(Arrays.copyOf(items, size)) +
+            "}";
+    }
+}
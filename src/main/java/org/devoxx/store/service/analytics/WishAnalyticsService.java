@@ -0,0 +1,189 @@
+package org.devoxx.store.service.analytics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.devoxx.store.domain.Wish;
+import org.devoxx.store.service.WishChangedEvent;
+import org.devoxx.store.service.WishChangedEvent.WishState;
+import org.devoxx.store.service.WishService;
+import org.devoxx.store.service.dto.PriceBandDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Service computing price analytics from an in-memory copy of the wishes, so they do not load the database.
+ * <p>
+ * The copy is loaded when the application is ready, then kept up to date with the committed
+ * {@link WishChangedEvent}s. Changes made to the database outside of WishService are not seen until the next
+ * restart.
+ * </p>
+ */
+@Service
+public class WishAnalyticsService {
+
+    /**
+     * The maximum number of bands of a distribution, the last one holding all the higher prices.
+     */
+    public static final int MAX_BANDS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(WishAnalyticsService.class);
+
+    private final WishService wishService;
+
+    private final WishColumns columns = new WishColumns();
+
+    /**
+     * The events received while the wishes are loaded, or null once they are loaded.
+     */
+    private List<WishChangedEvent> pendingEvents = new ArrayList<>();
+
+    public WishAnalyticsService(WishService wishService, MetricRegistry metricRegistry) {
+        this.wishService = wishService;
+        metricRegistry.register(MetricRegistry.name(WishAnalyticsService.class, "wishes"),
+            (Gauge<Integer>) columns::size);
+        metricRegistry.register(MetricRegistry.name(WishAnalyticsService.class, "wishlists"),
+            (Gauge<Integer>) columns::wishlistCount);
+    }
+
+    /**
+     * Load the wishes once the application is ready, on the task executor: the scan of all the wishes must not
+     * delay the startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loadWishes();
+    }
+
+    /**
+     * Load all the wishes. The events received meanwhile are applied afterwards, as the wishes they change may
+     * have been loaded before the change. If the wishes cannot be loaded, the events are applied to the wishes
+     * loaded so far, and are no longer buffered.
+     */
+    public void loadWishes() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            if (pendingEvents == null) {
+                pendingEvents = new ArrayList<>();
+            }
+        }
+        try {
+            columns.clear();
+            wishService.exportAll(null, this::put);
+            log.info("Loaded {} wishes for analytics in {} ms", columns.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Could not load the wishes for analytics, {} loaded: {}", columns.size(), e.getMessage());
+            throw e;
+        } finally {
+            List<WishChangedEvent> events;
+            synchronized (this) {
+                events = pendingEvents;
+                pendingEvents = null;
+            }
+            events.forEach(this::apply);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onWishChanged(WishChangedEvent event) {
+        synchronized (this) {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    /**
+     * Get percentiles of the prices of the wishes of a product, using the nearest-rank method.
+     *
+     * @param productId the id of the product
+     * @param percentiles the percentiles, between 0 (excluded) and 100
+     * @return the price of each percentile, or an empty map if the product has no wishes
+     */
+    public SortedMap<Integer, BigDecimal> getPricePercentiles(long productId, int... percentiles) {
+        long[] prices = columns.getSortedPricesOfProduct(productId);
+        SortedMap<Integer, BigDecimal> result = new TreeMap<>();
+        if (prices.length > 0) {
+            for (int percentile : percentiles) {
+                if (percentile <= 0 || percentile > 100) {
+                    throw new IllegalArgumentException("Percentiles must be between 0 (excluded) and 100: " + percentile);
+                }
+                int rank = (int) Math.ceil(percentile / 100.0 * prices.length);
+                result.put(percentile, fromCents(prices[rank - 1]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the wishes by price band.
+     *
+     * @param bandWidth the width of the bands
+     * @return the bands, up to the one of the highest price
+     */
+    public List<PriceBandDTO> getDemandByPriceBand(BigDecimal bandWidth) {
+        long bandWidthInCents = toCents(bandWidth);
+        return toBands(columns.countByPriceBand(bandWidthInCents, MAX_BANDS), bandWidthInCents);
+    }
+
+    /**
+     * Count the wishlists by band of value, the value of a wishlist being the sum of the prices of its wishes.
+     * Wishlists without wishes are not counted.
+     *
+     * @param bandWidth the width of the bands
+     * @return the bands, up to the one of the most valuable wishlist
+     */
+    public List<PriceBandDTO> getWishlistValueDistribution(BigDecimal bandWidth) {
+        long bandWidthInCents = toCents(bandWidth);
+        return toBands(WishColumns.countByBand(columns.getWishlistValues(), bandWidthInCents, MAX_BANDS),
+            bandWidthInCents);
+    }
+
+    private void put(Wish wish) {
+        put(wish.getId(), WishState.of(wish));
+    }
+
+    private void put(long wishId, WishState state) {
+        columns.put(wishId, state.getProductId(), toCents(state.getPrice()), state.getWishlistId());
+    }
+
+    private void apply(WishChangedEvent event) {
+        if (event.getCurrent() == null) {
+            columns.remove(event.getWishId());
+        } else {
+            put(event.getWishId(), event.getCurrent());
+        }
+    }
+
+    private static List<PriceBandDTO> toBands(long[] counts, long bandWidthInCents) {
+        List<PriceBandDTO> bands = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            boolean last = i == counts.length - 1 && counts.length == MAX_BANDS;
+            bands.add(new PriceBandDTO(fromCents(i * bandWidthInCents),
+                last ? null : fromCents((i + 1) * bandWidthInCents), counts[i]));
+        }
+        return bands;
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
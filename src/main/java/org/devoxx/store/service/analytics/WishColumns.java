@@ -0,0 +1,324 @@
+package org.devoxx.store.service.analytics;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * An in-memory, column oriented copy of the wishes, holding only what price analytics need.
+ * <p>
+ * Each wish is a row of parallel primitive arrays, so scans read contiguous memory, and only allocate their
+ * results and the accumulators of their parallel splits. Rows are kept contiguous: removing a wish moves the last row
+ * in its place. Large scans are run in parallel.
+ * </p>
+ * <p>
+ * The wishlists are numbered by ordinals, so that the values of the wishlists are summed in arrays. The ordinal of a
+ * wishlist is released with its last wish, and reused by the next new wishlist, so the ordinals are bounded by the
+ * number of wishlists having wishes at once.
+ * </p>
+ * <p>
+ * Changes are applied under a write lock, and scans under a read lock, so a scan always sees a consistent state.
+ * </p>
+ */
+public class WishColumns {
+
+    /**
+     * The wishlist ordinal of the wishes which do not belong to a wishlist.
+     */
+    static final int NO_WISHLIST = -1;
+
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap rowsByWishId = new LongIntHashMap();
+
+    private final LongIntHashMap ordinalsByWishlistId = new LongIntHashMap();
+
+    private long[] wishlistIdsByOrdinal = new long[INITIAL_CAPACITY];
+
+    private int[] rowCountsByOrdinal = new int[INITIAL_CAPACITY];
+
+    private int[] freeOrdinals = new int[INITIAL_CAPACITY];
+
+    private int freeOrdinalCount;
+
+    /**
+     * The number of ordinals handed out since the last {@link #clear()}, in use or free.
+     */
+    private int ordinalCount;
+
+    private long[] wishIds = new long[INITIAL_CAPACITY];
+
+    private long[] productIds = new long[INITIAL_CAPACITY];
+
+    private long[] pricesInCents = new long[INITIAL_CAPACITY];
+
+    private int[] wishlistOrdinals = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Add a wish, or replace it if it is already there.
+     *
+     * @param wishId the id of the wish
+     * @param productId the id of the product
+     * @param priceInCents the price, in cents
+     * @param wishlistId the id of the wishlist, or null
+     */
+    public void put(long wishId, long productId, long priceInCents, Long wishlistId) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            // Retained before the previous ordinal is released, so that a wish staying in its wishlist keeps it
+            int ordinal = retainWishlistOrdinal(wishlistId);
+            int row = rowsByWishId.get(wishId);
+            if (row == LongIntHashMap.NO_VALUE) {
+                if (size == wishIds.length) {
+                    grow();
+                }
+                row = size++;
+                wishIds[row] = wishId;
+                rowsByWishId.put(wishId, row);
+            } else {
+                releaseWishlistOrdinal(wishlistOrdinals[row]);
+            }
+            productIds[row] = productId;
+            pricesInCents[row] = priceInCents;
+            wishlistOrdinals[row] = ordinal;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a wish, if it is there.
+     *
+     * @param wishId the id of the wish
+     */
+    public void remove(long wishId) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int row = rowsByWishId.remove(wishId);
+            if (row == LongIntHashMap.NO_VALUE) {
+                return;
+            }
+            releaseWishlistOrdinal(wishlistOrdinals[row]);
+            int last = --size;
+            if (row != last) {
+                wishIds[row] = wishIds[last];
+                productIds[row] = productIds[last];
+                pricesInCents[row] = pricesInCents[last];
+                wishlistOrdinals[row] = wishlistOrdinals[last];
+                rowsByWishId.put(wishIds[row], row);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the wishes, and forget the wishlists.
+     */
+    public void clear() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            rowsByWishId.clear();
+            ordinalsByWishlistId.clear();
+            Arrays.fill(rowCountsByOrdinal, 0, ordinalCount, 0);
+            ordinalCount = 0;
+            freeOrdinalCount = 0;
+            size = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of wishlists which have wishes
+     */
+    public int wishlistCount() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return ordinalsByWishlistId.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @param productId the id of the product
+     * @return the prices of the wishes of the product, in cents, sorted in ascending order
+     */
+    public long[] getSortedPricesOfProduct(long productId) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            long[] products = productIds;
+            long[] prices = pricesInCents;
+            long[] result = rows().filter(row -> products[row] == productId).mapToLong(row -> prices[row]).toArray();
+            Arrays.sort(result);
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Count the wishes by price band. Bands are [0, width), [width, 2 * width)... and the last band holds all the
+     * prices above it.
+     *
+     * @param bandWidthInCents the width of the bands, in cents
+     * @param maxBands the maximum number of bands
+     * @return the number of wishes of each band, up to the band of the highest price
+     */
+    public long[] countByPriceBand(long bandWidthInCents, int maxBands) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            long[] prices = pricesInCents;
+            long maxPrice = rows().mapToLong(row -> prices[row]).max().orElse(-1);
+            int bands = bandCount(maxPrice, bandWidthInCents, maxBands);
+            return rows().collect(() -> new long[bands],
+                (counts, row) -> counts[band(prices[row], bandWidthInCents, bands)]++,
+                WishColumns::add);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return the sum of the prices of the wishes of each wishlist which has wishes, in cents, in no particular order
+     */
+    public long[] getWishlistValues() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            long[] prices = pricesInCents;
+            int[] ordinals = wishlistOrdinals;
+            int[] rowCounts = rowCountsByOrdinal;
+            int wishlists = ordinalCount;
+            long[] sums = rows().filter(row -> ordinals[row] != NO_WISHLIST).collect(
+                () -> new long[wishlists],
+                (acc, row) -> acc[ordinals[row]] += prices[row],
+                WishColumns::add);
+            // The free ordinals have no wishes
+            return IntStream.range(0, wishlists)
+                .filter(ordinal -> rowCounts[ordinal] > 0)
+                .mapToLong(ordinal -> sums[ordinal])
+                .toArray();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Count values by band. Bands are [0, width), [width, 2 * width)... and the last band holds all the values
+     * above it.
+     *
+     * @param values the values, which must be positive
+     * @param bandWidth the width of the bands
+     * @param maxBands the maximum number of bands
+     * @return the number of values of each band, up to the band of the highest value
+     */
+    public static long[] countByBand(long[] values, long bandWidth, int maxBands) {
+        int bands = bandCount(Arrays.stream(values).max().orElse(-1), bandWidth, maxBands);
+        long[] counts = new long[bands];
+        for (long value : values) {
+            counts[band(value, bandWidth, bands)]++;
+        }
+        return counts;
+    }
+
+    private IntStream rows() {
+        IntStream rows = IntStream.range(0, size);
+        return size >= PARALLEL_THRESHOLD ? rows.parallel() : rows;
+    }
+
+    /**
+     * Count one more wish in a wishlist, taking an ordinal for the wishlist if it has no wishes yet.
+     */
+    private int retainWishlistOrdinal(Long wishlistId) {
+        if (wishlistId == null) {
+            return NO_WISHLIST;
+        }
+        int ordinal = ordinalsByWishlistId.get(wishlistId);
+        if (ordinal == LongIntHashMap.NO_VALUE) {
+            if (freeOrdinalCount > 0) {
+                ordinal = freeOrdinals[--freeOrdinalCount];
+            } else {
+                if (ordinalCount == wishlistIdsByOrdinal.length) {
+                    growOrdinals();
+                }
+                ordinal = ordinalCount++;
+            }
+            ordinalsByWishlistId.put(wishlistId, ordinal);
+            wishlistIdsByOrdinal[ordinal] = wishlistId;
+        }
+        rowCountsByOrdinal[ordinal]++;
+        return ordinal;
+    }
+
+    /**
+     * Count one less wish in a wishlist, releasing the ordinal of the wishlist with its last wish.
+     */
+    private void releaseWishlistOrdinal(int ordinal) {
+        if (ordinal == NO_WISHLIST || --rowCountsByOrdinal[ordinal] > 0) {
+            return;
+        }
+        ordinalsByWishlistId.remove(wishlistIdsByOrdinal[ordinal]);
+        freeOrdinals[freeOrdinalCount++] = ordinal;
+    }
+
+    private void grow() {
+        int capacity = wishIds.length * 2;
+        wishIds = Arrays.copyOf(wishIds, capacity);
+        productIds = Arrays.copyOf(productIds, capacity);
+        pricesInCents = Arrays.copyOf(pricesInCents, capacity);
+        wishlistOrdinals = Arrays.copyOf(wishlistOrdinals, capacity);
+    }
+
+    private void growOrdinals() {
+        int capacity = wishlistIdsByOrdinal.length * 2;
+        wishlistIdsByOrdinal = Arrays.copyOf(wishlistIdsByOrdinal, capacity);
+        rowCountsByOrdinal = Arrays.copyOf(rowCountsByOrdinal, capacity);
+        freeOrdinals = Arrays.copyOf(freeOrdinals, capacity);
+    }
+
+    private static int bandCount(long maxValue, long bandWidth, int maxBands) {
+        if (bandWidth <= 0) {
+            throw new IllegalArgumentException("The width of the bands must be positive: " + bandWidth);
+        }
+        if (maxValue < 0) {
+            return 0;
+        }
+        return (int) Math.min(maxValue / bandWidth + 1, maxBands);
+    }
+
+    private static int band(long value, long bandWidth, int bands) {
+        return (int) Math.min(value / bandWidth, bands - 1);
+    }
+
+    private static void add(long[] sums, long[] values) {
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] += values[i];
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.devoxx.store.service.analytics;
+
+import org.devoxx.store.config.ApplicationProperties;
+import org.devoxx.store.domain.Wish;
+import org.devoxx.store.service.WishChangedEvent;
+import org.devoxx.store.service.WishChangedEvent.WishState;
+import org.devoxx.store.service.WishService;
+import org.devoxx.store.service.dto.ProductStatsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Service estimating the most wished products, and the number of distinct users who wish them, with streaming
+ * sketches which never read the wishes from the database once loaded.
+ * <p>
+ * Only the products with the most wishes are monitored, by a Space-Saving summary, and each monitored product has
+ * a HyperLogLog sketch of its users: memory depends on the configured capacity, not on the number of products.
+ * A product which starts being monitored starts with an empty sketch of users, and users who remove their wishes
+ * are still counted.
+ * </p>
+ * <p>
+ * The sketches are loaded when the application is ready, on the task executor, then kept up to date with the committed
+ * {@link WishChangedEvent}s.
+ * </p>
+ */
+@Service
+public class WishSketchService {
+
+    private final Logger log = LoggerFactory.getLogger(WishSketchService.class);
+
+    private final WishService wishService;
+
+    private final int distinctUsersPrecision;
+
+    private final SpaceSaving topProducts;
+
+    private final Map<Long, HyperLogLog> distinctUsersByProduct = new HashMap<>();
+
+    /**
+     * The events received while the wishes are loaded, or null once they are loaded.
+     */
+    private List<WishChangedEvent> pendingEvents = new ArrayList<>();
+
+    public WishSketchService(WishService wishService, ApplicationProperties applicationProperties) {
+        this.wishService = wishService;
+        ApplicationProperties.WishSketches properties = applicationProperties.getWishSketches();
+        this.distinctUsersPrecision = properties.getDistinctUsersPrecision();
+        this.topProducts = new SpaceSaving(properties.getMonitoredProducts(), distinctUsersByProduct::remove);
+    }
+
+    /**
+     * Load the wishes once the application is ready, on the task executor: the scan of all the wishes must not
+     * delay the startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loadWishes();
+    }
+
+    /**
+     * Load all the wishes, replacing the sketches. The events received meanwhile are applied afterwards, so a wish
+     * committed while the load starts may be counted twice, which is within the approximation of the sketches. If
+     * the wishes cannot be loaded, the events are applied to the wishes loaded so far, and are no longer buffered.
+     */
+    public void loadWishes() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            if (pendingEvents == null) {
+                pendingEvents = new ArrayList<>();
+            }
+            topProducts.clear();
+            distinctUsersByProduct.clear();
+        }
+        try {
+            wishService.exportAll(null, this::add);
+            log.info("Loaded wish sketches in {} ms", System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Could not load the wish sketches: {}", e.getMessage());
+            throw e;
+        } finally {
+            List<WishChangedEvent> events;
+            synchronized (this) {
+                events = pendingEvents;
+                pendingEvents = null;
+            }
+            events.forEach(this::apply);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onWishChanged(WishChangedEvent event) {
+        synchronized (this) {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    /**
+     * @param size the maximum number of products
+     * @return the most wished products, in descending order of wishes
+     */
+    public synchronized List<ProductStatsDTO> getTopProducts(int size) {
+        return LongStream.of(topProducts.getTop(size)).mapToObj(this::getStats).collect(Collectors.toList());
+    }
+
+    /**
+     * @param productId the id of the product
+     * @return the statistics of the product, or null if the product is not among the monitored ones
+     */
+    public synchronized ProductStatsDTO getProductStats(long productId) {
+        return topProducts.contains(productId) ? getStats(productId) : null;
+    }
+
+    private ProductStatsDTO getStats(long productId) {
+        HyperLogLog distinctUsers = distinctUsersByProduct.get(productId);
+        return new ProductStatsDTO(productId, topProducts.getCount(productId), topProducts.getError(productId),
+            distinctUsers == null ? 0 : distinctUsers.estimate());
+    }
+
+    private synchronized void add(Wish wish) {
+        add(WishState.of(wish));
+    }
+
+    private synchronized void apply(WishChangedEvent event) {
+        WishState previous = event.getPrevious();
+        WishState current = event.getCurrent();
+        if (current == null) {
+            topProducts.decrement(previous.getProductId());
+        } else if (previous == null || previous.getProductId() != current.getProductId()) {
+            if (previous != null) {
+                topProducts.decrement(previous.getProductId());
+            }
+            add(current);
+        } else {
+            // Same product, maybe moved to the wishlist of another user
+            addUser(current);
+        }
+    }
+
+    private void add(WishState state) {
+        topProducts.increment(state.getProductId());
+        addUser(state);
+    }
+
+    private void addUser(WishState state) {
+        if (state.getUserId() != null && topProducts.contains(state.getProductId())) {
+            distinctUsersByProduct.computeIfAbsent(state.getProductId(), id -> new HyperLogLog(distinctUsersPrecision))
+                .add(state.getUserId());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.devoxx.store.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A DTO counting the values within a price band.
+ */
+public class PriceBandDTO {
+
+    private final BigDecimal from;
+
+    private final BigDecimal to;
+
+    private final long count;
+
+    public PriceBandDTO(BigDecimal from, BigDecimal to, long count) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    /**
+     * The lower bound of the band, inclusive.
+     */
+    public BigDecimal getFrom() {
+        return from;
+    }
+
+    /**
+     * The upper bound of the band, exclusive, or null if the band holds all the values above its lower bound.
+     */
+    public BigDecimal getTo() {
+        return to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceBandDTO{" +
+            "from=" + from +
+            ", to=" + to +
+            ", count=" + count +
+            "}";
+    }
+}
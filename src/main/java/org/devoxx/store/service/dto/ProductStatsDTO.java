@@ -0,0 +1,54 @@
+package org.devoxx.store.service.dto;
+
+/**
+ * A DTO estimating how much a product is wished.
+ */
+public class ProductStatsDTO {
+
+    private final Long productId;
+
+    private final long wishCount;
+
+    private final long wishCountError;
+
+    private final long distinctUserCount;
+
+    public ProductStatsDTO(Long productId, long wishCount, long wishCountError, long distinctUserCount) {
+        this.productId = productId;
+        this.wishCount = wishCount;
+        this.wishCountError = wishCountError;
+        this.distinctUserCount = distinctUserCount;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * The number of wishes of the product, which may be overestimated by at most {@link #getWishCountError()}.
+     */
+    public long getWishCount() {
+        return wishCount;
+    }
+
+    public long getWishCountError() {
+        return wishCountError;
+    }
+
+    /**
+     * An estimation of the number of distinct users who wished the product, since it is monitored.
+     */
+    public long getDistinctUserCount() {
+        return distinctUserCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductStatsDTO{" +
+            "productId=" + productId +
+            ", wishCount=" + wishCount +
+            ", wishCountError=" + wishCountError +
+            ", distinctUserCount=" + distinctUserCount +
+            "}";
+    }
+}
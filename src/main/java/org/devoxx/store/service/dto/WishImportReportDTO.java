@@ -0,0 +1,80 @@
+package org.devoxx.store.service.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DTO reporting the outcome of a wish import, with the rows that could not be imported.
+ */
+public class WishImportReportDTO {
+
+    private final long importedCount;
+
+    private final long rejectedCount;
+
+    private final long durationInMilliseconds;
+
+    private final List<RowError> errors;
+
+    public WishImportReportDTO(long importedCount, long rejectedCount, long durationInMilliseconds,
+        List<RowError> errors) {
+
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.durationInMilliseconds = durationInMilliseconds;
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getDurationInMilliseconds() {
+        return durationInMilliseconds;
+    }
+
+    /**
+     * The first rejected rows. Only a bounded number of errors is reported, see {@link #getRejectedCount()} for the
+     * total.
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "WishImportReportDTO{" +
+            "importedCount=" + importedCount +
+            ", rejectedCount=" + rejectedCount +
+            ", durationInMilliseconds=" + durationInMilliseconds +
+            "}";
+    }
+
+    /**
+     * An error on a row of the imported file.
+     */
+    public static class RowError {
+
+        private final long line;
+
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.devoxx.store.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A DTO holding the number of wishes of a wishlist, and the sum of their prices.
+ */
+public class WishlistSummaryDTO {
+
+    private final Long id;
+
+    private final long wishCount;
+
+    private final BigDecimal totalPrice;
+
+    public WishlistSummaryDTO(Long id, Long wishCount, BigDecimal totalPrice) {
+        this.id = id;
+        this.wishCount = wishCount;
+        this.totalPrice = totalPrice;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getWishCount() {
+        return wishCount;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "WishlistSummaryDTO{" +
+            "id=" + id +
+            ", wishCount=" + wishCount +
+            ", totalPrice=" + totalPrice +
+            "}";
+    }
+}
@@ -0,0 +1,39 @@
+package org.devoxx.store.service.lease;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a scheduled job on a single node of the cluster at a time, the one holding the lease of the job: the other
+ * nodes skip it. The lease is renewed while the job runs, and expires if its node dies.
+ * <p>
+ * A job split in partitions has a lease for each partition, so that the nodes share its keyspace: each node runs
+ * the partitions it could lease, one after the other, with {@link Partition#current()} set.
+ * </p>
+ * <p>
+ * Once the job ran, its lease is left until it expires, so that the nodes starting the job a bit later skip it.
+ * </p>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterLock {
+
+    /**
+     * @return the name of the lease, unique among the jobs
+     */
+    String value();
+
+    /**
+     * @return the duration of the lease, in milliseconds, renewed every third of it while the job runs
+     */
+    long leaseTime() default 600000;
+
+    /**
+     * @return the number of partitions of the keyspace of the job
+     */
+    int partitions() default 1;
+}
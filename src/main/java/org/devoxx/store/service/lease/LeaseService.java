@@ -0,0 +1,186 @@
+package org.devoxx.store.service.lease;
+
+import org.devoxx.store.domain.Lease;
+import org.devoxx.store.repository.LeaseRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service running jobs under the leases of the jhi_lease table, see {@link ClusterLock}.
+ * <p>
+ * A lease is taken by a conditional update, in its own transaction, so that it is visible to the other nodes at
+ * once, even when the job is called in a transaction. The expiration of the leases is compared to the clock of each
+ * node, so the lease time must be much longer than the skew of the clocks.
+ * </p>
+ */
+@Service
+public class LeaseService {
+
+    private final Logger log = LoggerFactory.getLogger(LeaseService.class);
+
+    private final LeaseRepository leaseRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The name of this node, unique among the nodes and their restarts.
+     */
+    private final String owner;
+
+    /**
+     * The renewals of the leases, on their own thread: the scheduler thread runs the jobs.
+     */
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "store-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LeaseService(LeaseRepository leaseRepository, PlatformTransactionManager transactionManager) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * A job run under a lease.
+     */
+    @FunctionalInterface
+    public interface Job {
+
+        Object run() throws Throwable;
+    }
+
+    /**
+     * Run a job, or the partitions of a job, whose lease could be taken by this node.
+     *
+     * @param name the name of the lease of the job
+     * @param leaseTime the duration of the lease, in milliseconds
+     * @param partitions the number of partitions of the job
+     * @param job the job, which reads its partition with {@link Partition#current()}
+     * @return the result of the last partition run by this node, or null if it ran none
+     */
+    public Object run(String name, long leaseTime, int partitions, Job job) throws Throwable {
+        if (partitions <= 1) {
+            return runPartition(name, leaseTime, Partition.ALL, job);
+        }
+        // The nodes start from different partitions, so that they rarely compete for the same leases
+        int first = ThreadLocalRandom.current().nextInt(partitions);
+        Object result = null;
+        for (int i = 0; i < partitions; i++) {
+            Partition partition = new Partition((first + i) % partitions, partitions);
+            Object partitionResult = runPartition(name + "#" + partition.getIndex(), leaseTime, partition, job);
+            if (partitionResult != null) {
+                result = partitionResult;
+            }
+        }
+        return result;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private Object runPartition(String name, long leaseTime, Partition partition, Job job) throws Throwable {
+        if (!acquire(name, leaseTime)) {
+            log.debug("Skipping {}, leased by another node", name);
+            return null;
+        }
+        log.debug("Running {} on {}", name, owner);
+        long renewalPeriod = Math.max(leaseTime / 3, 1);
+        // Guards the renewals, so that a renewal running when the job ends cannot extend the lease once released
+        AtomicBoolean ended = new AtomicBoolean();
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            synchronized (ended) {
+                if (!ended.get()) {
+                    extend(name, leaseTime);
+                }
+            }
+        }, renewalPeriod, renewalPeriod, TimeUnit.MILLISECONDS);
+        boolean completed = false;
+        Partition.setCurrent(partition);
+        try {
+            Object result = job.run();
+            completed = true;
+            return result;
+        } finally {
+            Partition.setCurrent(null);
+            heartbeat.cancel(false);
+            synchronized (ended) {
+                ended.set(true);
+                if (!completed) {
+                    // Let another node run the job without waiting for the lease to expire
+                    extend(name, 0);
+                }
+            }
+        }
+    }
+
+    private boolean acquire(String name, long leaseTime) {
+        Instant now = Instant.now();
+        Instant until = now.plusMillis(leaseTime);
+        try {
+            return transactionTemplate.execute(status -> {
+                if (leaseRepository.acquire(name, owner, now, until) > 0) {
+                    return true;
+                }
+                if (leaseRepository.exists(name)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(Lease.create(name, owner, now, until));
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the lease meanwhile
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Could not take the lease {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void extend(String name, long leaseTime) {
+        try {
+            Integer extended = transactionTemplate.execute(status ->
+                leaseRepository.extend(name, owner, Instant.now().plusMillis(leaseTime)));
+            if (extended == null || extended == 0) {
+                log.warn("Lost the lease {}, another node may run its job concurrently", name);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not renew the lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        heartbeats.shutdownNow();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.devoxx.store.service.lease;
+
+/**
+ * A partition of the keyspace of a job run with a {@link ClusterLock}: the keys of the partition are the ones for
+ * which {@code key % count == index}.
+ */
+public final class Partition {
+
+    /**
+     * The single partition of the jobs which are not split.
+     */
+    public static final Partition ALL = new Partition(0, 1);
+
+    private static final ThreadLocal<Partition> CURRENT = new ThreadLocal<>();
+
+    private final int index;
+
+    private final int count;
+
+    public Partition(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid partition " + index + " of " + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @return the partition run by the current thread, or {@link #ALL} if the job is not split or not run with a
+     * {@link ClusterLock}
+     */
+    public static Partition current() {
+        Partition partition = CURRENT.get();
+        return partition == null ? ALL : partition;
+    }
+
+    static void setCurrent(Partition partition) {
+        if (partition == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(partition);
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param key a key of the job
+     * @return true if the key is in this partition
+     */
+    public boolean contains(long key) {
+        return Math.floorMod(key, count) == index;
+    }
+
+    @Override
+    public String toString() {
+        return "Partition{" + index + "/" + count + "}";
+    }
+}
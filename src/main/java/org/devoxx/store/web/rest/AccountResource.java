@@ -4,7 +4,7 @@ import com.codahale.metrics.annotation.Timed;
 
 import org.devoxx.store.domain.User;
 import org.devoxx.store.repository.UserRepository;
-import org.devoxx.store.security.SecurityUtils;
+import org.devoxx.store.security.CurrentUserHolder;
 import org.devoxx.store.service.MailService;
 import org.devoxx.store.service.UserService;
 import org.devoxx.store.service.dto.UserDTO;
@@ -15,6 +15,7 @@ import org.devoxx.store.web.rest.util.HeaderUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -40,12 +41,15 @@ public class AccountResource {
 
     private final MailService mailService;
 
+    private final CurrentUserHolder currentUserHolder;
+
     public AccountResource(UserRepository userRepository, UserService userService,
-            MailService mailService) {
+            MailService mailService, CurrentUserHolder currentUserHolder) {
 
         this.userRepository = userRepository;
         this.userService = userService;
         this.mailService = mailService;
+        this.currentUserHolder = currentUserHolder;
     }
 
     /**
@@ -62,20 +66,24 @@ public class AccountResource {
         HttpHeaders textPlainHeaders = new HttpHeaders();
         textPlainHeaders.setContentType(MediaType.TEXT_PLAIN);
 
-        return userRepository.findOneByLogin(managedUserVM.getLogin().toLowerCase())
-            .map(user -> new ResponseEntity<>("login already in use", textPlainHeaders, HttpStatus.BAD_REQUEST))
-            .orElseGet(() -> userRepository.findOneByEmail(managedUserVM.getEmail())
-                .map(user -> new ResponseEntity<>("e-mail address already in use", textPlainHeaders, HttpStatus.BAD_REQUEST))
-                .orElseGet(() -> {
-                    User user = userService
-                        .createUser(managedUserVM.getLogin(), managedUserVM.getPassword(),
-                            managedUserVM.getFirstName(), managedUserVM.getLastName(),
-                            managedUserVM.getEmail().toLowerCase(), managedUserVM.getImageUrl(), managedUserVM.getLangKey());
-
-                    mailService.sendActivationEmail(user);
-                    return new ResponseEntity<>(HttpStatus.CREATED);
-                })
-        );
+        String email = managedUserVM.getEmail().toLowerCase();
+        User user;
+        try {
+            user = userService
+                .createUser(managedUserVM.getLogin(), managedUserVM.getPassword(),
+                    managedUserVM.getFirstName(), managedUserVM.getLastName(),
+                    email, managedUserVM.getImageUrl(), managedUserVM.getLangKey());
+        } catch (DataIntegrityViolationException e) {
+            // Registering is not checked beforehand, so look for the duplicate only when there is one
+            if (userRepository.findOneByLogin(managedUserVM.getLogin().toLowerCase()).isPresent()) {
+                return new ResponseEntity<>("login already in use", textPlainHeaders, HttpStatus.BAD_REQUEST);
+            } else if (userRepository.findOneByEmail(email).isPresent()) {
+                return new ResponseEntity<>("e-mail address already in use", textPlainHeaders, HttpStatus.BAD_REQUEST);
+            }
+            throw e;
+        }
+        mailService.sendActivationEmail(user);
+        return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
     /**
@@ -127,12 +135,16 @@ public class AccountResource {
     @PostMapping("/account")
     @Timed
     public ResponseEntity<String> saveAccount(@Valid @RequestBody UserDTO userDTO) {
-        Optional<User> existingUser = userRepository.findOneByEmail(userDTO.getEmail());
-        if (existingUser.isPresent() && (!existingUser.get().getLogin().equalsIgnoreCase(userDTO.getLogin()))) {
-            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("user-management", "emailexists", "Email already in use")).body(null);
+        Optional<User> currentUser = currentUserHolder.getCurrentUser();
+        // The e-mail address of the current user is usually unchanged, and then cannot be used by another user
+        boolean emailChanged = !currentUser.isPresent() || !StringUtils.equalsIgnoreCase(userDTO.getEmail(), currentUser.get().getEmail());
+        if (emailChanged) {
+            Optional<User> existingUser = userRepository.findOneByEmail(StringUtils.lowerCase(userDTO.getEmail(), Locale.ENGLISH));
+            if (existingUser.isPresent() && (!existingUser.get().getLogin().equalsIgnoreCase(userDTO.getLogin()))) {
+                return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("user-management", "emailexists", "Email already in use")).body(null);
+            }
         }
-        return userRepository
-            .findOneByLogin(SecurityUtils.getCurrentUserLogin())
+        return currentUser
             .map(u -> {
                 userService.updateUser(userDTO.getFirstName(), userDTO.getLastName(), userDTO.getEmail(),
                     userDTO.getLangKey());
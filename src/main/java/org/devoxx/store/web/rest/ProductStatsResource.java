@@ -0,0 +1,65 @@
+package org.devoxx.store.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import org.devoxx.store.service.analytics.WishSketchService;
+import org.devoxx.store.service.dto.ProductStatsDTO;
+import org.devoxx.store.web.rest.util.HeaderUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for the estimated statistics of the most wished products.
+ */
+@RestController
+@RequestMapping("/api")
+public class ProductStatsResource {
+
+    private final Logger log = LoggerFactory.getLogger(ProductStatsResource.class);
+
+    private static final String ENTITY_NAME = "productStats";
+
+    private final WishSketchService wishSketchService;
+
+    public ProductStatsResource(WishSketchService wishSketchService) {
+        this.wishSketchService = wishSketchService;
+    }
+
+    /**
+     * GET  /wishes/top-products : get the most wished products.
+     *
+     * @param size the maximum number of products
+     * @return the ResponseEntity with status 200 (OK) and with body the statistics of the most wished products, in
+     * descending order of wishes, or with status 400 (Bad Request) if the size is not positive
+     */
+    @GetMapping("/wishes/top-products")
+    @Timed
+    public ResponseEntity<List<ProductStatsDTO>> getTopProducts(@RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to get the {} most wished products", size);
+        if (size < 1) {
+            return ResponseEntity.badRequest()
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidsize", "The size must be positive"))
+                .body(null);
+        }
+        return ResponseEntity.ok(wishSketchService.getTopProducts(size));
+    }
+
+    /**
+     * GET  /wishes/products/:productId/stats : get the statistics of the "productId" product.
+     *
+     * @param productId the id of the product
+     * @return the ResponseEntity with status 200 (OK) and with body the statistics, or with status 404 (Not Found)
+     * if the product is not among the monitored ones
+     */
+    @GetMapping("/wishes/products/{productId}/stats")
+    @Timed
+    public ResponseEntity<ProductStatsDTO> getProductStats(@PathVariable Long productId) {
+        log.debug("REST request to get the statistics of product : {}", productId);
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(wishSketchService.getProductStats(productId)));
+    }
+}
@@ -1,22 +1,28 @@
 package org.devoxx.store.web.rest;
 
+import org.devoxx.store.security.AsyncAuthenticationManager;
+import org.devoxx.store.security.LoginThrottle;
 import org.devoxx.store.security.jwt.JWTConfigurer;
+import org.devoxx.store.security.jwt.JWTFilter;
 import org.devoxx.store.security.jwt.TokenProvider;
 import org.devoxx.store.web.rest.vm.LoginVM;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.codahale.metrics.annotation.Timed;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @RestController
@@ -25,29 +31,82 @@ public class UserJWTController {
 
     private final TokenProvider tokenProvider;
 
-    private final AuthenticationManager authenticationManager;
+    private final AsyncAuthenticationManager asyncAuthenticationManager;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManager authenticationManager) {
+    private final LoginThrottle loginThrottle;
+
+    public UserJWTController(TokenProvider tokenProvider, AsyncAuthenticationManager asyncAuthenticationManager,
+                             LoginThrottle loginThrottle) {
         this.tokenProvider = tokenProvider;
-        this.authenticationManager = authenticationManager;
+        this.asyncAuthenticationManager = asyncAuthenticationManager;
+        this.loginThrottle = loginThrottle;
     }
 
+    /**
+     * POST  /authenticate : authenticate a user, on the password hashing pool so the request thread is released
+     * meanwhile.
+     *
+     * @param loginVM the login and password of the user
+     * @param request the HTTP request
+     * @return the ResponseEntity with status 200 (OK) and the token in body and in the Authorization header, or with status 401 (Unauthorized) if
+     * the authentication failed, or with status 429 (Too Many Requests) if the login or the client failed too many
+     * times, or with status 503 (Service Unavailable) if too many logins are in progress
+     */
     @PostMapping("/authenticate")
     @Timed
-    public ResponseEntity<?> authorize(@Valid @RequestBody LoginVM loginVM, HttpServletResponse response) {
+    public CompletableFuture<ResponseEntity<?>> authorize(@Valid @RequestBody LoginVM loginVM,
+                                                          HttpServletRequest request) {
+
+        // The address of the client, resolved by the server from the X-Forwarded-For header of the internal proxies
+        if (loginThrottle.isThrottled(loginVM.getUsername(), request.getRemoteAddr())) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(loginThrottle.getRetryAfterSeconds()));
+            return CompletableFuture.completedFuture(new ResponseEntity<>(headers, HttpStatus.TOO_MANY_REQUESTS));
+        }
 
         UsernamePasswordAuthenticationToken authenticationToken =
             new UsernamePasswordAuthenticationToken(loginVM.getUsername(), loginVM.getPassword());
+        // The failures are audited with the address of the client, which is counted by the login throttle
+        authenticationToken.setDetails(new WebAuthenticationDetails(request));
 
+        CompletableFuture<Authentication> authentication;
         try {
-            Authentication authentication = this.authenticationManager.authenticate(authenticationToken);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            boolean rememberMe = (loginVM.isRememberMe() == null) ? false : loginVM.isRememberMe();
-            String jwt = tokenProvider.createToken(authentication, rememberMe);
-            response.addHeader(JWTConfigurer.AUTHORIZATION_HEADER, "Bearer " + jwt);
-            return ResponseEntity.ok(new JWTToken(jwt));
-        } catch (AuthenticationException exception) {
-            return new ResponseEntity<>(Collections.singletonMap("AuthenticationException",exception.getLocalizedMessage()), HttpStatus.UNAUTHORIZED);
+            authentication = asyncAuthenticationManager.authenticate(authenticationToken);
+        } catch (RejectedExecutionException e) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return CompletableFuture.completedFuture(new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        boolean rememberMe = (loginVM.isRememberMe() == null) ? false : loginVM.isRememberMe();
+        return authentication.<ResponseEntity<?>>thenApply(result -> {
+            String jwt = tokenProvider.createToken(result, rememberMe);
+            // In the response entity, as the response itself must not be written by the pool thread
+            HttpHeaders headers = new HttpHeaders();
+            headers.add(JWTConfigurer.AUTHORIZATION_HEADER, "Bearer " + jwt);
+            return new ResponseEntity<>(new JWTToken(jwt), headers, HttpStatus.OK);
+        }).exceptionally(throwable -> {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause instanceof AuthenticationException) {
+                return new ResponseEntity<>(Collections.singletonMap("AuthenticationException",cause.getLocalizedMessage()), HttpStatus.UNAUTHORIZED);
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    /**
+     * DELETE  /authenticate : revoke the token of the request, so it cannot be used anymore.
+     *
+     * @param request the HTTP request
+     * @return the ResponseEntity with status 200 (OK), or with status 401 (Unauthorized) if there is no valid token
+     */
+    @DeleteMapping("/authenticate")
+    @Timed
+    public ResponseEntity<Void> revoke(HttpServletRequest request) {
+        String jwt = JWTFilter.resolveToken(request);
+        if (jwt == null || tokenProvider.getValidAuthentication(jwt) == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
+        tokenProvider.revokeToken(jwt);
+        return ResponseEntity.ok().build();
     }
 }
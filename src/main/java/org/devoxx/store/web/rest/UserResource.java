@@ -14,10 +14,13 @@ import org.devoxx.store.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import io.swagger.annotations.ApiParam;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -92,22 +95,27 @@ public class UserResource {
     public ResponseEntity createUser(@RequestBody ManagedUserVM managedUserVM) throws URISyntaxException {
         log.debug("REST request to save User : {}", managedUserVM);
 
-        //Lowercase the user login before comparing with database
-        if (userRepository.findOneByLogin(managedUserVM.getLogin().toLowerCase()).isPresent()) {
-            return ResponseEntity.badRequest()
-                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "userexists", "Login already in use"))
-                .body(null);
-        } else if (userRepository.findOneByEmail(managedUserVM.getEmail()).isPresent()) {
-            return ResponseEntity.badRequest()
-                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "emailexists", "Email already in use"))
-                .body(null);
-        } else {
-            User newUser = userService.createUser(managedUserVM);
-            mailService.sendCreationEmail(newUser);
-            return ResponseEntity.created(new URI("/api/users/" + newUser.getLogin()))
-                .headers(HeaderUtil.createAlert( "userManagement.created", newUser.getLogin()))
-                .body(newUser);
+        User newUser;
+        try {
+            newUser = userService.createUser(managedUserVM);
+        } catch (DataIntegrityViolationException e) {
+            // The unique indexes reject the duplicates: look for the duplicate only when there is one
+            //Lowercase the user login before comparing with database
+            if (userRepository.findOneByLogin(managedUserVM.getLogin().toLowerCase()).isPresent()) {
+                return ResponseEntity.badRequest()
+                    .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "userexists", "Login already in use"))
+                    .body(null);
+            } else if (userRepository.findOneByEmail(StringUtils.lowerCase(managedUserVM.getEmail(), Locale.ENGLISH)).isPresent()) {
+                return ResponseEntity.badRequest()
+                    .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "emailexists", "Email already in use"))
+                    .body(null);
+            }
+            throw e;
         }
+        mailService.sendCreationEmail(newUser);
+        return ResponseEntity.created(new URI("/api/users/" + newUser.getLogin()))
+            .headers(HeaderUtil.createAlert( "userManagement.created", newUser.getLogin()))
+            .body(newUser);
     }
 
     /**
@@ -123,7 +131,7 @@ public class UserResource {
     @Secured(AuthoritiesConstants.ADMIN)
     public ResponseEntity<UserDTO> updateUser(@RequestBody ManagedUserVM managedUserVM) {
         log.debug("REST request to update User : {}", managedUserVM);
-        Optional<User> existingUser = userRepository.findOneByEmail(managedUserVM.getEmail());
+        Optional<User> existingUser = userRepository.findOneByEmail(StringUtils.lowerCase(managedUserVM.getEmail(), Locale.ENGLISH));
         if (existingUser.isPresent() && (!existingUser.get().getId().equals(managedUserVM.getId()))) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "emailexists", "E-mail already in use")).body(null);
         }
@@ -153,6 +161,22 @@ public class UserResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /users?cursor= : get a slice of the users, using keyset pagination on the login.
+     *
+     * @param cursor the cursor of the slice, as found in the "next" link, or empty for the first slice
+     * @param pageable the pagination information, of which only the size is used
+     * @return the ResponseEntity with status 200 (OK) and with body the users
+     */
+    @GetMapping(value = "/users", params = "cursor")
+    @Timed
+    public ResponseEntity<List<UserDTO>> getAllUsersByCursor(@RequestParam String cursor, @ApiParam Pageable pageable) {
+        final Slice<UserDTO> slice = userService.getAllManagedUsersAfter(PaginationUtil.decodeCursor(cursor),
+            pageable.getPageSize());
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(slice, UserDTO::getLogin, "/api/users");
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * GET  /users/:login : get the "login" user.
      *
@@ -0,0 +1,86 @@
+package org.devoxx.store.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import org.devoxx.store.service.analytics.WishAnalyticsService;
+import org.devoxx.store.service.dto.PriceBandDTO;
+import org.devoxx.store.web.rest.errors.CustomParameterizedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * REST controller for the price analytics of the wishes.
+ */
+@RestController
+@RequestMapping("/api/wishes/analytics")
+public class WishAnalyticsResource {
+
+    private static final BigDecimal MIN_BAND_WIDTH = new BigDecimal("0.01");
+
+    private final Logger log = LoggerFactory.getLogger(WishAnalyticsResource.class);
+
+    private final WishAnalyticsService wishAnalyticsService;
+
+    public WishAnalyticsResource(WishAnalyticsService wishAnalyticsService) {
+        this.wishAnalyticsService = wishAnalyticsService;
+    }
+
+    /**
+     * GET  /wishes/analytics/products/:productId/price-percentiles : get percentiles of the prices of the wishes of
+     * the "productId" product.
+     *
+     * @param productId the id of the product
+     * @param percentiles the percentiles, between 0 (excluded) and 100
+     * @return the price of each percentile, or an empty object if the product has no wishes
+     */
+    @GetMapping("/products/{productId}/price-percentiles")
+    @Timed
+    public SortedMap<Integer, BigDecimal> getPricePercentiles(@PathVariable Long productId,
+        @RequestParam(value = "percentile", defaultValue = "50,90,99") int[] percentiles) {
+        log.debug("REST request to get price percentiles of product : {}", productId);
+        for (int percentile : percentiles) {
+            if (percentile <= 0 || percentile > 100) {
+                throw new CustomParameterizedException("error.invalidPercentile", String.valueOf(percentile));
+            }
+        }
+        return wishAnalyticsService.getPricePercentiles(productId, percentiles);
+    }
+
+    /**
+     * GET  /wishes/analytics/price-bands : count the wishes by price band.
+     *
+     * @param width the width of the bands
+     * @return the bands, up to the one of the highest price
+     */
+    @GetMapping("/price-bands")
+    @Timed
+    public List<PriceBandDTO> getDemandByPriceBand(@RequestParam BigDecimal width) {
+        log.debug("REST request to count wishes by price band : {}", width);
+        return wishAnalyticsService.getDemandByPriceBand(checkBandWidth(width));
+    }
+
+    /**
+     * GET  /wishes/analytics/wishlist-values : count the wishlists by band of value, the value of a wishlist being
+     * the sum of the prices of its wishes.
+     *
+     * @param width the width of the bands
+     * @return the bands, up to the one of the most valuable wishlist
+     */
+    @GetMapping("/wishlist-values")
+    @Timed
+    public List<PriceBandDTO> getWishlistValueDistribution(@RequestParam BigDecimal width) {
+        log.debug("REST request to count wishlists by value band : {}", width);
+        return wishAnalyticsService.getWishlistValueDistribution(checkBandWidth(width));
+    }
+
+    private static BigDecimal checkBandWidth(BigDecimal width) {
+        if (width.compareTo(MIN_BAND_WIDTH) < 0) {
+            throw new CustomParameterizedException("error.invalidBandWidth", width.toPlainString());
+        }
+        return width;
+    }
+}
@@ -1,8 +1,13 @@
 package org.devoxx.store.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.devoxx.store.domain.Wish;
+import org.devoxx.store.service.ImportTooLargeException;
+import org.devoxx.store.service.WishImportService;
 import org.devoxx.store.service.WishService;
+import org.devoxx.store.service.dto.WishImportReportDTO;
 import org.devoxx.store.web.rest.util.HeaderUtil;
 import org.devoxx.store.web.rest.util.PaginationUtil;
 import io.swagger.annotations.ApiParam;
@@ -11,16 +16,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for managing Wish.
@@ -32,11 +50,23 @@ public class WishResource {
     private final Logger log = LoggerFactory.getLogger(WishResource.class);
 
     private static final String ENTITY_NAME = "wish";
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
         
     private final WishService wishService;
 
-    public WishResource(WishService wishService) {
+    private final WishImportService wishImportService;
+
+    private final ObjectMapper objectMapper;
+
+    public WishResource(WishService wishService, WishImportService wishImportService, ObjectMapper objectMapper) {
         this.wishService = wishService;
+        this.wishImportService = wishImportService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -59,6 +89,74 @@ public class WishResource {
             .body(result);
     }
 
+    /**
+     * POST  /wishes/batch : Create new wishes.
+     *
+     * @param wishes the wishes to create
+     * @return the ResponseEntity with status 201 (Created) and with body the ids of the new wishes, in the order
+     * of the request, or with status 400 (Bad Request) if a wish has already an ID, or if there are too many wishes
+     */
+    @PostMapping("/wishes/batch")
+    @Timed
+    public ResponseEntity<List<Long>> createWishes(@RequestBody List<Wish> wishes) {
+        log.debug("REST request to save {} Wishes", wishes.size());
+        if (wishes.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "batchtoolarge", "A batch cannot have more than " + MAX_BATCH_SIZE + " wishes")).body(null);
+        }
+        if (wishes.stream().anyMatch(wish -> wish.getId() != null)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new wish cannot already have an ID")).body(null);
+        }
+        List<Long> ids = wishService.saveAll(wishes).stream()
+            .map(Wish::getId)
+            .collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, String.valueOf(ids.size())))
+            .body(ids);
+    }
+
+    /**
+     * POST  /wishes/import : Import wishes from a CSV file.
+     * <p>
+     * The file is the body of the request, read as it is received: it is not uploaded as multipart, so the multipart
+     * size limits of the other endpoints do not apply to it. It starts with a header naming its "productId", "price"
+     * and, optionally, "wishlistId" columns. Rows which are not valid are skipped, and reported in the response.
+     * </p>
+     * <p>
+     * The file may be sent without its length, in chunks: its size is then checked while it is read, and the rows
+     * saved before it turned out to be too large are kept.
+     * </p>
+     *
+     * @param request the request, whose body is the CSV file
+     * @return the ResponseEntity with status 200 (OK) and with body the report of the import,
+     * or with status 400 (Bad Request) if the header of the file is not valid,
+     * or with status 413 (Payload Too Large) if the file is too large,
+     * or with status 503 (Service Unavailable) if too many imports are running
+     * @throws IOException if the file could not be read
+     */
+    @PostMapping(value = "/wishes/import", consumes = "text/csv")
+    @Timed
+    public ResponseEntity<WishImportReportDTO> importWishes(HttpServletRequest request) throws IOException {
+        long length = request.getContentLengthLong();
+        log.debug("REST request to import Wishes from {} bytes", length);
+        // A file of unknown length, sent in chunks, is counted while it is read
+        if (length > wishImportService.getMaxFileSize()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "importsize", "The file is too large")).body(null);
+        }
+        try (InputStream input = request.getInputStream()) {
+            return ResponseEntity.ok(wishImportService.importCsv(input));
+        } catch (ImportTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "importsize", e.getMessage())).body(null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "importheader", e.getMessage())).body(null);
+        } catch (RejectedExecutionException e) {
+            HttpHeaders headers = HeaderUtil.createFailureAlert(ENTITY_NAME, "importbusy", "Too many imports are running");
+            headers.set(HttpHeaders.RETRY_AFTER, "60");
+            return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
     /**
      * PUT  /wishes : Updates an existing wish.
      *
@@ -98,6 +196,139 @@ public class WishResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /wishlists/:wishlistId/wishes : get the wishes of the "wishlistId" wishlist.
+     *
+     * @param wishlistId the id of the wishlist
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of wishes in body
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @GetMapping("/wishlists/{wishlistId}/wishes")
+    @Timed
+    public ResponseEntity<List<Wish>> getWishesOfWishlist(@PathVariable Long wishlistId, @ApiParam Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to get a page of Wishes of Wishlist : {}", wishlistId);
+        Page<Wish> page = wishService.findByWishlist(wishlistId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/wishlists/" + wishlistId + "/wishes");
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /products/:productId/wishes : get the wishes of the "productId" product.
+     *
+     * @param productId the id of the product
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of wishes in body
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @GetMapping("/products/{productId}/wishes")
+    @Timed
+    public ResponseEntity<List<Wish>> getWishesOfProduct(@PathVariable Long productId, @ApiParam Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to get a page of Wishes of product : {}", productId);
+        Page<Wish> page = wishService.findByProduct(productId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/products/" + productId + "/wishes");
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /wishes?cursor= : get a slice of the wishes, using keyset pagination.
+     *
+     * @param cursor the cursor of the slice, as found in the "next" link, or empty for the first slice
+     * @param pageable the pagination information, of which only the size is used
+     * @return the ResponseEntity with status 200 (OK) and the list of wishes in body
+     */
+    @GetMapping(value = "/wishes", params = "cursor")
+    @Timed
+    public ResponseEntity<List<Wish>> getAllWishesByCursor(@RequestParam String cursor, @ApiParam Pageable pageable) {
+        log.debug("REST request to get a slice of Wishes");
+        Slice<Wish> slice = wishService.findAllAfter(PaginationUtil.decodeLongCursor(cursor), pageable.getPageSize());
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(slice, Wish::getId, "/api/wishes");
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /wishes/export : export all the wishes, or the wishes of a wishlist.
+     * <p>
+     * The wishes are streamed as they are read from the database, as newline-delimited JSON or CSV.
+     * </p>
+     *
+     * @param wishlistId the id of the wishlist to export, or none to export all the wishes
+     * @param format the format of the export, "ndjson" (the default) or "csv"
+     * @return the ResponseEntity with status 200 (OK) and the wishes in body, or with status 400 (Bad Request) if
+     * the format is not supported
+     */
+    @GetMapping("/wishes/export")
+    @Timed
+    public ResponseEntity<StreamingResponseBody> exportWishes(@RequestParam(required = false) Long wishlistId,
+        @RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export Wishes of Wishlist : {}", wishlistId);
+        boolean csv;
+        if ("csv".equals(format)) {
+            csv = true;
+        } else if ("ndjson".equals(format)) {
+            csv = false;
+        } else {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "exportformat", "Unsupported export format " + format)).body(null);
+        }
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            JsonGenerator generator = null;
+            if (csv) {
+                writer.write("id,productId,price,wishlistId\n");
+            } else {
+                generator = objectMapper.getFactory().createGenerator(writer)
+                    .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+                // Each wish is followed by a new line, instead of separated from the previous one by a space
+                generator.setRootValueSeparator(null);
+            }
+            JsonGenerator jsonGenerator = generator;
+            try {
+                wishService.exportAll(wishlistId, wish -> {
+                    try {
+                        if (csv) {
+                            writer.write(toCsvLine(wish));
+                        } else {
+                            writeJsonLine(jsonGenerator, wish);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (generator != null) {
+                generator.flush();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+            .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wishes." + format + "\"")
+            .body(body);
+    }
+
+    private static String toCsvLine(Wish wish) {
+        return wish.getId() + "," + wish.getProductId() + "," + wish.getPrice().toPlainString() + "," +
+            (wish.getWishlist() == null ? "" : wish.getWishlist().getId()) + "\n";
+    }
+
+    private static void writeJsonLine(JsonGenerator generator, Wish wish) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", wish.getId());
+        generator.writeNumberField("productId", wish.getProductId());
+        generator.writeNumberField("price", wish.getPrice());
+        if (wish.getWishlist() == null) {
+            generator.writeNullField("wishlistId");
+        } else {
+            generator.writeNumberField("wishlistId", wish.getWishlist().getId());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
     /**
      * GET  /wishes/:id : get the "id" wish.
      *
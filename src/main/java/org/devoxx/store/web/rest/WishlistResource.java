@@ -4,10 +4,20 @@ import com.codahale.metrics.annotation.Timed;
 import org.devoxx.store.domain.Wishlist;
 
 import org.devoxx.store.repository.WishlistRepository;
+import org.devoxx.store.security.SecurityUtils;
+import org.devoxx.store.service.WishlistService;
+import org.devoxx.store.service.dto.WishlistSummaryDTO;
 import org.devoxx.store.web.rest.util.HeaderUtil;
+import org.devoxx.store.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
+import io.swagger.annotations.ApiParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,8 +40,11 @@ public class WishlistResource {
         
     private final WishlistRepository wishlistRepository;
 
-    public WishlistResource(WishlistRepository wishlistRepository) {
+    private final WishlistService wishlistService;
+
+    public WishlistResource(WishlistRepository wishlistRepository, WishlistService wishlistService) {
         this.wishlistRepository = wishlistRepository;
+        this.wishlistService = wishlistService;
     }
 
     /**
@@ -48,7 +61,7 @@ public class WishlistResource {
         if (wishlist.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new wishlist cannot already have an ID")).body(null);
         }
-        Wishlist result = wishlistRepository.save(wishlist);
+        Wishlist result = wishlistService.save(wishlist);
         return ResponseEntity.created(new URI("/api/wishlists/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -70,14 +83,14 @@ public class WishlistResource {
         if (wishlist.getId() == null) {
             return createWishlist(wishlist);
         }
-        Wishlist result = wishlistRepository.save(wishlist);
+        Wishlist result = wishlistService.save(wishlist);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, wishlist.getId().toString()))
             .body(result);
     }
 
     /**
-     * GET  /wishlists : get all the wishlists.
+     * GET  /wishlists : get all the wishlists of the current user.
      *
      * @return the ResponseEntity with status 200 (OK) and the list of wishlists in body
      */
@@ -86,10 +99,28 @@ public class WishlistResource {
     public List<Wishlist> getAllWishlists() {
         log.debug("REST request to get all Wishlists");
         //Hello Devoxx
-        List<Wishlist> wishlists = wishlistRepository.findByUserIsCurrentUser();
+        List<Wishlist> wishlists = wishlistService.findByUser(SecurityUtils.getCurrentUserLogin());
         return wishlists;
     }
 
+    /**
+     * GET  /wishlists?cursor= : get a slice of the wishlists, using keyset pagination.
+     *
+     * @param cursor the cursor of the slice, as found in the "next" link, or empty for the first slice
+     * @param pageable the pagination information, of which only the size is used
+     * @return the ResponseEntity with status 200 (OK) and the list of wishlists in body
+     */
+    @GetMapping(value = "/wishlists", params = "cursor")
+    @Timed
+    public ResponseEntity<List<Wishlist>> getAllWishlistsByCursor(@RequestParam String cursor, @ApiParam Pageable pageable) {
+        log.debug("REST request to get a slice of Wishlists");
+        Long lastId = PaginationUtil.decodeLongCursor(cursor);
+        Slice<Wishlist> slice = wishlistRepository.findByUserIsCurrentUserAndIdGreaterThan(
+            lastId == null ? Long.MIN_VALUE : lastId, new PageRequest(0, pageable.getPageSize()));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(slice, Wishlist::getId, "/api/wishlists");
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * GET  /wishlists/:id : get the "id" wishlist.
      *
@@ -104,6 +135,20 @@ public class WishlistResource {
         return ResponseUtil.wrapOrNotFound(Optional.ofNullable(wishlist));
     }
 
+    /**
+     * GET  /wishlists/:id/summary : get the number of wishes of the "id" wishlist, and the sum of their prices.
+     *
+     * @param id the id of the wishlist
+     * @return the ResponseEntity with status 200 (OK) and with body the summary, or with status 404 (Not Found)
+     */
+    @GetMapping("/wishlists/{id}/summary")
+    @Timed
+    public ResponseEntity<WishlistSummaryDTO> getWishlistSummary(@PathVariable Long id) {
+        log.debug("REST request to get the summary of Wishlist : {}", id);
+        WishlistSummaryDTO summary = wishlistService.findSummary(id);
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(summary));
+    }
+
     /**
      * DELETE  /wishlists/:id : delete the "id" wishlist.
      *
@@ -114,7 +159,7 @@ public class WishlistResource {
     @Timed
     public ResponseEntity<Void> deleteWishlist(@PathVariable Long id) {
         log.debug("REST request to delete Wishlist : {}", id);
-        wishlistRepository.delete(id);
+        wishlistService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
@@ -2,6 +2,9 @@ package org.devoxx.store.web.rest.errors;
 
 import java.util.List;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
@@ -37,6 +40,18 @@ public class ExceptionTranslator {
         return processFieldErrors(fieldErrors);
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ErrorVM processConstraintViolationError(ConstraintViolationException ex) {
+        ErrorVM dto = new ErrorVM(ErrorConstants.ERR_VALIDATION);
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            dto.add(violation.getRootBeanClass().getSimpleName(), violation.getPropertyPath().toString(),
+                violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName());
+        }
+        return dto;
+    }
+
     @ExceptionHandler(CustomParameterizedException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
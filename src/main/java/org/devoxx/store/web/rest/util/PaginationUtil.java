@@ -1,10 +1,17 @@
 package org.devoxx.store.web.rest.util;
 
+import org.devoxx.store.web.rest.errors.CustomParameterizedException;
+
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * Utility class for handling pagination.
@@ -12,6 +19,11 @@ import java.net.URISyntaxException;
  * <p>
  * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">Github API</a>,
  * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ *
+ * <p>
+ * Cursor (keyset) pagination links carry an opaque "cursor" parameter instead of a page number: it encodes
+ * the sort key of the last element returned, so the next slice is a seek on an index instead of an offset scan,
+ * and no count query is needed.
  */
 public final class PaginationUtil {
 
@@ -42,7 +54,73 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the Link header of a slice of cursor pagination: a "next" link, unless the slice is the last one, and
+     * a "first" link.
+     *
+     * @param slice the slice
+     * @param cursorKey the sort key of an element, encoded in the cursor of the next slice
+     * @param baseUrl the URL of the listing
+     * @return the headers
+     */
+    public static <T> HttpHeaders generateCursorHttpHeaders(Slice<T> slice, Function<T, ?> cursorKey, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            String nextCursor = encodeCursor(cursorKey.apply(content.get(content.size() - 1)));
+            link = "<" + generateCursorUri(baseUrl, nextCursor, slice.getSize()) + ">; rel=\"next\",";
+        }
+        link += "<" + generateCursorUri(baseUrl, "", slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Encode a sort key as an opaque, URL-safe cursor.
+     *
+     * @param key the sort key of the last element of a slice
+     * @return the cursor
+     */
+    public static String encodeCursor(Object key) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.valueOf(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encodeCursor(Object)}.
+     *
+     * @param cursor the cursor, empty for the first slice
+     * @return the sort key, or null for the first slice
+     */
+    public static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new CustomParameterizedException("error.invalidCursor", cursor);
+        }
+    }
+
+    public static Long decodeLongCursor(String cursor) {
+        String key = decodeCursor(cursor);
+        if (key == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new CustomParameterizedException("error.invalidCursor", cursor);
+        }
+    }
+
     private static String generateUri(String baseUrl, int page, int size) throws URISyntaxException {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
+
+    private static String generateCursorUri(String baseUrl, String cursor, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("cursor", cursor).queryParam("size", size).toUriString();
+    }
 }
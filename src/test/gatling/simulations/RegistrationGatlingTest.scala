@@ -0,0 +1,75 @@
+import java.util.UUID
+
+import _root_.io.gatling.core.scenario.Simulation
+import ch.qos.logback.classic.{Level, LoggerContext}
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import org.slf4j.LoggerFactory
+
+import scala.concurrent.duration._
+
+/**
+ * Performance test for the concurrent registration of users.
+ */
+class RegistrationGatlingTest extends Simulation {
+
+    val context: LoggerContext = LoggerFactory.getILoggerFactory.asInstanceOf[LoggerContext]
+    // Log all HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("TRACE"))
+    // Log failed HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("DEBUG"))
+
+    val baseURL = Option(System.getProperty("baseURL")) getOrElse """http://127.0.0.1:8080"""
+
+    val httpConf = http
+        .baseURL(baseURL)
+        .inferHtmlResources()
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .acceptLanguageHeader("fr,fr-fr;q=0.8,en-us;q=0.5,en;q=0.3")
+        .connectionHeader("keep-alive")
+        .userAgentHeader("Mozilla/5.0 (Macintosh; Intel Mac OS X 10.10; rv:33.0) Gecko/20100101 Firefox/33.0")
+
+    val headers_http_registration = Map(
+        "Content-Type" -> """application/json""",
+        "Accept" -> """application/json, text/plain"""
+    )
+
+    // A new login for each virtual user, and a few logins shared by the users registering at the same time
+    val logins = Iterator.continually(Map(
+        "login" -> ("gatling-" + UUID.randomUUID().toString),
+        "contended_login" -> ("gatling-contended-" + (System.nanoTime() / 1000000000L))
+    ))
+
+    val scn = scenario("Test the concurrent registration of users")
+        .feed(logins)
+        .exec(http("Register new user")
+        .post("/api/register")
+        .headers(headers_http_registration)
+        .body(StringBody("""{"login":"${login}", "password":"password", "email":"${login}@example.com", "langKey":"en"}""")).asJSON
+        .check(status.is(201))).exitHereIfFailed
+        .pause(1)
+        .exec(http("Register same login")
+        .post("/api/register")
+        .headers(headers_http_registration)
+        .body(StringBody("""{"login":"${login}", "password":"password", "email":"other-${login}@example.com", "langKey":"en"}""")).asJSON
+        .check(status.is(400)))
+        .pause(1)
+        .exec(http("Register same e-mail address")
+        .post("/api/register")
+        .headers(headers_http_registration)
+        .body(StringBody("""{"login":"other-${login}", "password":"password", "email":"${login}@example.com", "langKey":"en"}""")).asJSON
+        .check(status.is(400)))
+        .pause(1)
+        .exec(http("Register contended login")
+        .post("/api/register")
+        .headers(headers_http_registration)
+        .body(StringBody("""{"login":"${contended_login}", "password":"password", "email":"${login}-contended@example.com", "langKey":"en"}""")).asJSON
+        .check(status.in(201, 400)))
+
+    val users = scenario("Users").exec(scn)
+
+    setUp(
+        users.inject(rampUsers(1000) over (1 minutes))
+    ).protocols(httpConf)
+}
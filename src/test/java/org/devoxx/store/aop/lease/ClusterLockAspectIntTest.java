@@ -0,0 +1,98 @@
+package org.devoxx.store.aop.lease;
+
+import org.devoxx.store.StoreApp;
+import org.devoxx.store.domain.Lease;
+import org.devoxx.store.domain.Wish;
+import org.devoxx.store.domain.Wishlist;
+import org.devoxx.store.repository.LeaseRepository;
+import org.devoxx.store.repository.WishRepository;
+import org.devoxx.store.repository.WishlistRepository;
+import org.devoxx.store.service.WishlistService;
+import org.devoxx.store.service.lease.LeaseService;
+import org.devoxx.store.web.rest.WishResourceIntTest;
+import org.devoxx.store.web.rest.WishlistResourceIntTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ClusterLockAspect, through the scheduled reconciliation of the totals of the wishlists.
+ * <p>
+ * The leases are taken in their own transactions, so the tests are not transactional.
+ * </p>
+ *
+ * @see ClusterLockAspect
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class)
+public class ClusterLockAspectIntTest {
+
+    private static final String LEASE_NAME = "reconcileTotals";
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    private LeaseRepository leaseRepository;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private WishRepository wishRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Wishlist wishlist;
+
+    private Wish wish;
+
+    @Before
+    public void initTest() {
+        leaseRepository.deleteAll();
+        // A wish added behind the back of WishService, so that the totals of its wishlist must be reconciled
+        wishlist = wishlistRepository.saveAndFlush(WishlistResourceIntTest.createEntity(em));
+        wish = wishRepository.saveAndFlush(WishResourceIntTest.createEntity(em).wishlist(wishlist));
+    }
+
+    @After
+    public void cleanup() {
+        leaseRepository.deleteAll();
+        wishRepository.delete(wish);
+        wishlistRepository.delete(wishlist);
+    }
+
+    @Test
+    public void assertThatLockedMethodRunsUnderItsLease() {
+        wishlistService.reconcileTotals();
+
+        assertThat(wishlistService.findSummary(wishlist.getId()).getWishCount()).isEqualTo(1);
+        Lease lease = leaseRepository.findOne(LEASE_NAME);
+        assertThat(lease.getOwner()).isEqualTo(leaseService.getOwner());
+        assertThat(lease.getLockedUntil()).isGreaterThan(Instant.now());
+    }
+
+    @Test
+    public void assertThatLockedMethodIsSkippedWhileAnotherNodeHoldsItsLease() {
+        leaseRepository.saveAndFlush(Lease.create(LEASE_NAME, "other-node", Instant.now(),
+            Instant.now().plusSeconds(60)));
+
+        wishlistService.reconcileTotals();
+
+        assertThat(wishlistService.findSummary(wishlist.getId()).getWishCount()).isEqualTo(0);
+        assertThat(leaseRepository.findOne(LEASE_NAME).getOwner()).isEqualTo("other-node");
+    }
+}
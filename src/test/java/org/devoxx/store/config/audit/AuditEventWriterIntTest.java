@@ -0,0 +1,90 @@
+package org.devoxx.store.config.audit;
+
+import org.devoxx.store.StoreApp;
+import org.devoxx.store.domain.PersistentAuditEvent;
+import org.devoxx.store.repository.CustomAuditEventRepository;
+import org.devoxx.store.repository.PersistenceAuditEventRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventWriter.
+ * <p>
+ * The events are written by the writer thread, in its own transactions, so the tests are not transactional.
+ *
+ * @see AuditEventWriter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class)
+public class AuditEventWriterIntTest {
+
+    @Autowired
+    private CustomAuditEventRepository customAuditEventRepository;
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private AuditEventWriter auditEventWriter;
+
+    @After
+    public void deleteAuditEvents() {
+        persistenceAuditEventRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatAddedEventsAreWrittenByBatches() throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            customAuditEventRepository.add(new AuditEvent("writer-test", "AUTHENTICATION_SUCCESS",
+                Collections.singletonMap("remoteAddress", "127.0.0." + i)));
+        }
+
+        assertThat(auditEventWriter.flush(10000)).isTrue();
+        List<PersistentAuditEvent> events = persistenceAuditEventRepository.findByPrincipal("writer-test");
+        assertThat(events).hasSize(250);
+        assertThat(events).extracting("auditEventType").containsOnly("AUTHENTICATION_SUCCESS");
+    }
+
+    @Test
+    public void assertThatOnlyInvalidEventsOfABatchAreDropped() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            auditEventWriter.add(createEvent("writer-test"));
+        }
+        // Not valid, as an event must have a principal
+        auditEventWriter.add(createEvent(null));
+        for (int i = 0; i < 10; i++) {
+            auditEventWriter.add(createEvent("writer-test"));
+        }
+
+        assertThat(auditEventWriter.flush(10000)).isTrue();
+        assertThat(persistenceAuditEventRepository.findByPrincipal("writer-test")).hasSize(20);
+    }
+
+    @Test
+    public void assertThatAnonymousEventsAreNotWritten() throws InterruptedException {
+        customAuditEventRepository.add(new AuditEvent("anonymoususer", "AUTHENTICATION_SUCCESS",
+            Collections.emptyMap()));
+
+        assertThat(auditEventWriter.flush(10000)).isTrue();
+        assertThat(persistenceAuditEventRepository.findByPrincipal("anonymoususer")).isEmpty();
+    }
+
+    private static PersistentAuditEvent createEvent(String principal) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventDate(LocalDateTime.now());
+        event.setAuditEventType("AUTHENTICATION_SUCCESS");
+        return event;
+    }
+}
@@ -0,0 +1,100 @@
+package org.devoxx.store.config.audit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RingBuffer.
+ *
+ * @see RingBuffer
+ */
+public class RingBufferUnitTest {
+
+    @Test
+    public void testElementsArePolledInOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(i)).isTrue();
+            }
+            assertThat(buffer.size()).isEqualTo(3);
+            assertThat(buffer.poll()).isEqualTo(0);
+            assertThat(buffer.poll()).isEqualTo(1);
+            assertThat(buffer.poll()).isEqualTo(2);
+            assertThat(buffer.poll()).isNull();
+            assertThat(buffer.isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    public void testFullBufferRejectsElements() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        int producers = 4;
+        int elementsPerProducer = 100000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                int first = p * elementsPerProducer;
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + elementsPerProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+
+            Set<Integer> polled = new HashSet<>();
+            int[] lastOfProducer = new int[producers];
+            Arrays.fill(lastOfProducer, -1);
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (polled.size() < producers * elementsPerProducer && System.currentTimeMillis() < deadline) {
+                Integer element = buffer.poll();
+                if (element == null) {
+                    Thread.yield();
+                    continue;
+                }
+                assertThat(polled.add(element)).as("element polled once").isTrue();
+                // The elements of each producer are polled in the order they were added
+                int producer = element / elementsPerProducer;
+                assertThat(element).isGreaterThan(lastOfProducer[producer]);
+                lastOfProducer[producer] = element;
+            }
+            assertThat(polled).hasSize(producers * elementsPerProducer);
+            assertThat(buffer.isEmpty()).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.devoxx.store.security;
+
+import com.codahale.metrics.MetricRegistry;
+import org.devoxx.store.config.ApplicationProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the AsyncAuthenticationManager.
+ *
+ * @see AsyncAuthenticationManager
+ */
+public class AsyncAuthenticationManagerUnitTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private MetricRegistry metricRegistry;
+
+    private AsyncAuthenticationManager asyncAuthenticationManager;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPasswordHashing().setPoolSize(1);
+        applicationProperties.getPasswordHashing().setQueueCapacity(1);
+        metricRegistry = new MetricRegistry();
+        asyncAuthenticationManager = new AsyncAuthenticationManager(authentication -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!"password".equals(authentication.getCredentials())) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            return authentication;
+        }, applicationProperties, metricRegistry);
+    }
+
+    @After
+    public void shutdown() {
+        release.countDown();
+        asyncAuthenticationManager.shutdown();
+    }
+
+    @Test
+    public void testRejectWhenFull() throws Exception {
+        CompletableFuture<Authentication> running = asyncAuthenticationManager.authenticate(token("password"));
+        CompletableFuture<Authentication> queued = asyncAuthenticationManager.authenticate(token("wrong"));
+        try {
+            asyncAuthenticationManager.authenticate(token("password"));
+            fail("The third authentication should be rejected");
+        } catch (RejectedExecutionException e) {
+            assertThat(metricRegistry.meter("org.devoxx.store.security.AsyncAuthenticationManager.rejected").getCount())
+                .isEqualTo(1);
+        }
+
+        release.countDown();
+        assertThat(running.get().getName()).isEqualTo("john");
+        try {
+            queued.get();
+            fail("The authentication should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(BadCredentialsException.class);
+        }
+        assertThat(metricRegistry.timer("org.devoxx.store.security.AsyncAuthenticationManager.wait").getCount())
+            .isEqualTo(3);
+    }
+
+    private static Authentication token(String password) {
+        return new UsernamePasswordAuthenticationToken("john", password);
+    }
+}
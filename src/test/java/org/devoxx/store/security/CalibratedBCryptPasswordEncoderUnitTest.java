@@ -0,0 +1,34 @@
+package org.devoxx.store.security;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CalibratedBCryptPasswordEncoder.
+ *
+ * @see CalibratedBCryptPasswordEncoder
+ */
+public class CalibratedBCryptPasswordEncoderUnitTest {
+
+    @Test
+    public void testNeedsRehash() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(11);
+
+        assertThat(encoder.needsRehash(encoder.encode("password"))).isFalse();
+        assertThat(encoder.needsRehash(new CalibratedBCryptPasswordEncoder(10).encode("password"))).isTrue();
+        // A hash of a node with a higher cost is kept
+        assertThat(encoder.needsRehash(new CalibratedBCryptPasswordEncoder(12).encode("password"))).isFalse();
+        assertThat(encoder.needsRehash("not a hash")).isFalse();
+        assertThat(encoder.needsRehash(null)).isFalse();
+    }
+
+    @Test
+    public void testCalibrate() {
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(0).getStrength())
+            .isEqualTo(CalibratedBCryptPasswordEncoder.DEFAULT_STRENGTH);
+        // Never cheaper than the default cost
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(1).getStrength())
+            .isEqualTo(CalibratedBCryptPasswordEncoder.DEFAULT_STRENGTH);
+    }
+}
@@ -0,0 +1,80 @@
+package org.devoxx.store.security;
+
+import com.codahale.metrics.MetricRegistry;
+import org.devoxx.store.config.ApplicationProperties;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.actuate.audit.listener.AuditApplicationEvent;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the LoginThrottle.
+ *
+ * @see LoginThrottle
+ */
+public class LoginThrottleUnitTest {
+
+    private LoginThrottle loginThrottle;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getLoginThrottle().setMaxFailuresPerLogin(3);
+        applicationProperties.getLoginThrottle().setMaxFailuresPerAddress(5);
+        loginThrottle = new LoginThrottle(applicationProperties, new MetricRegistry());
+    }
+
+    @Test
+    public void testThrottleLogin() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(loginThrottle.isThrottled("John", "10.0.0.1")).isFalse();
+            loginThrottle.recordFailure("John", "10.0.0." + i);
+        }
+
+        assertThat(loginThrottle.isThrottled("john", "10.0.0.1")).isTrue();
+        assertThat(loginThrottle.isThrottled("jane", "10.0.0.1")).isFalse();
+    }
+
+    @Test
+    public void testThrottleAddress() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.recordFailure("user-" + i, "10.0.0.1");
+        }
+
+        assertThat(loginThrottle.isThrottled("jane", "10.0.0.1")).isTrue();
+        assertThat(loginThrottle.isThrottled("jane", "10.0.0.2")).isFalse();
+    }
+
+    @Test
+    public void testDecay() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure("john", null);
+        }
+        assertThat(loginThrottle.isThrottled("john", null)).isTrue();
+
+        loginThrottle.decay();
+
+        assertThat(loginThrottle.isThrottled("john", null)).isFalse();
+    }
+
+    @Test
+    public void testCountAuditedFailures() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.3");
+        AuditEvent auditEvent = new AuditEvent("john", LoginThrottle.AUTHENTICATION_FAILURE,
+            Collections.singletonMap("details", new WebAuthenticationDetails(request)));
+
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.onAuditEvent(new AuditApplicationEvent(auditEvent));
+        }
+
+        assertThat(loginThrottle.isThrottled("john", null)).isTrue();
+        assertThat(loginThrottle.isThrottled(null, "10.0.0.3")).isFalse();
+    }
+}
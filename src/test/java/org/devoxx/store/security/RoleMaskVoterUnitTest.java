@@ -0,0 +1,36 @@
+package org.devoxx.store.security;
+
+import org.junit.Test;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.SecurityConfig;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RoleMaskVoter.
+ *
+ * @see RoleMaskVoter
+ */
+public class RoleMaskVoterUnitTest {
+
+    private final RoleMaskVoter voter = new RoleMaskVoter();
+
+    @Test
+    public void testVote() {
+        RoleAuthenticationToken user = new RoleAuthenticationToken("user", "",
+            Collections.singletonList(KnownAuthorities.get(AuthoritiesConstants.USER)));
+
+        assertThat(voter.vote(user, null, SecurityConfig.createList(AuthoritiesConstants.USER)))
+            .isEqualTo(AccessDecisionVoter.ACCESS_GRANTED);
+        assertThat(voter.vote(user, null, SecurityConfig.createList(AuthoritiesConstants.ADMIN)))
+            .isEqualTo(AccessDecisionVoter.ACCESS_DENIED);
+        assertThat(voter.vote(user, null, SecurityConfig.createList(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER)))
+            .isEqualTo(AccessDecisionVoter.ACCESS_GRANTED);
+        assertThat(voter.vote(user, null, SecurityConfig.createList("IS_AUTHENTICATED_FULLY")))
+            .isEqualTo(AccessDecisionVoter.ACCESS_ABSTAIN);
+        assertThat(voter.vote(null, null, SecurityConfig.createList(AuthoritiesConstants.USER)))
+            .isEqualTo(AccessDecisionVoter.ACCESS_DENIED);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -47,4 +48,26 @@ public class SecurityUtilsUnitTest {
         boolean isAuthenticated = SecurityUtils.isAuthenticated();
         assertThat(isAuthenticated).isFalse();
     }
+
+    @Test
+    public void testIsCurrentUserInRoleWithRoleMask() {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(new RoleAuthenticationToken("admin", "admin", Arrays.asList(
+            KnownAuthorities.get(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority("ROLE_MERCHANT"))));
+        SecurityContextHolder.setContext(securityContext);
+        assertThat(SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.USER)).isFalse();
+        assertThat(SecurityUtils.isCurrentUserInRole("ROLE_MERCHANT")).isTrue();
+        assertThat(SecurityUtils.isCurrentUserInRole("ROLE_OTHER")).isFalse();
+        assertThat(SecurityUtils.isAuthenticated()).isTrue();
+    }
+
+    @Test
+    public void testAnonymousWithRoleMaskIsNotAuthenticated() {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(new RoleAuthenticationToken("anonymous", "anonymous",
+            KnownAuthorities.fromMask(1 << KnownAuthorities.bitOf(AuthoritiesConstants.ANONYMOUS))));
+        SecurityContextHolder.setContext(securityContext);
+        assertThat(SecurityUtils.isAuthenticated()).isFalse();
+    }
 }
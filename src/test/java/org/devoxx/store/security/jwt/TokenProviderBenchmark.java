@@ -0,0 +1,93 @@
+package org.devoxx.store.security.jwt;
+
+import com.codahale.metrics.MetricRegistry;
+import io.github.jhipster.config.JHipsterProperties;
+import org.devoxx.store.security.AuthoritiesConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * JMH benchmark of the TokenProvider, which runs on each authenticated request.
+ * <p>
+ * It is not run with the tests: run its main method, for instance from the IDE, after compiling the tests.
+ * </p>
+ *
+ * @see TokenProvider
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String SECRET = "1b38d1cfc93ee3057e14e5dbf03d71aec2976bc5";
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret(SECRET);
+        // The revocations are not benchmarked, and the mock must not record its invocations
+        TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class, withSettings().stubOnly());
+        tokenProvider = new TokenProvider(jHipsterProperties, tokenRevocationService, new MetricRegistry());
+        tokenProvider.init();
+        authentication = new UsernamePasswordAuthenticationToken("john", "",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    /**
+     * The authentication of a token which was already verified, as on most requests.
+     */
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    /**
+     * The verification of the signature of a token, which is what a token not found in the cache costs.
+     */
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    /**
+     * The creation of a token, which is signed with the precomputed key.
+     */
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenProviderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,186 @@
+package org.devoxx.store.security.jwt;
+
+import com.codahale.metrics.MetricRegistry;
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.devoxx.store.security.AuthoritiesConstants;
+import org.devoxx.store.security.KnownAuthorities;
+import org.devoxx.store.security.RoleAuthenticationToken;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the TokenProvider.
+ *
+ * @see TokenProvider
+ */
+public class TokenProviderUnitTest {
+
+    private static final String SECRET = "1b38d1cfc93ee3057e14e5dbf03d71aec2976bc5";
+
+    private MetricRegistry metricRegistry;
+
+    private TokenRevocationService tokenRevocationService;
+
+    private TokenProvider tokenProvider;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        tokenRevocationService = mock(TokenRevocationService.class);
+        tokenProvider = createTokenProvider(SECRET, 60, tokenRevocationService, metricRegistry);
+    }
+
+    @Test
+    public void testGetValidAuthentication() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.getValidAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("john");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly(AuthoritiesConstants.USER);
+        assertThat(((RoleAuthenticationToken) authentication).hasAuthority(AuthoritiesConstants.USER)).isTrue();
+    }
+
+    @Test
+    public void testVerifiedTokenIsNotParsedAgain() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.getValidAuthentication(token);
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isSameAs(authentication);
+        assertThat(tokenProvider.getAuthentication(token)).isSameAs(authentication);
+        assertThat(metricRegistry.meter("org.devoxx.store.security.jwt.TokenProvider.cache.hits").getCount())
+            .isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidSignature() {
+        TokenProvider otherTokenProvider = createTokenProvider("0123456789abcdef", 60, tokenRevocationService,
+            new MetricRegistry());
+        String token = otherTokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isNull();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    public void testTokensAreCompatibleWithJjwt() {
+        String jjwtToken = Jwts.builder()
+            .setSubject("john")
+            .claim("auth", AuthoritiesConstants.USER)
+            .signWith(SignatureAlgorithm.HS512, SECRET)
+            .setExpiration(new Date(System.currentTimeMillis() + 60000))
+            .compact();
+
+        // Older tokens hold all their authorities in the "auth" claim
+        Authentication authentication = tokenProvider.getValidAuthentication(jjwtToken);
+        assertThat(authentication.getName()).isEqualTo("john");
+        assertThat(authentication.getAuthorities()).containsExactly(KnownAuthorities.get(AuthoritiesConstants.USER));
+
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        Claims claims = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+        assertThat(claims.getSubject()).isEqualTo("john");
+        assertThat(claims.getId()).hasSize(22);
+        assertThat(claims.getIssuedAt()).isNotNull();
+        assertThat(claims.get("rol")).isEqualTo(KnownAuthorities.toMask(createAuthentication().getAuthorities()));
+        assertThat(claims.containsKey("auth")).isFalse();
+    }
+
+    @Test
+    public void testRevokedToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.getValidAuthentication(token)).isNotNull();
+
+        String jti = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody().getId();
+        when(tokenRevocationService.isRevoked(eq(jti), eq("john"), anyLong())).thenReturn(true);
+
+        // Verified tokens are checked again
+        assertThat(tokenProvider.getValidAuthentication(token)).isNull();
+        assertThat(tokenProvider.getAuthentication(token)).isNull();
+        assertThat(tokenProvider.getValidAuthentication(tokenProvider.createToken(createAuthentication(), false)))
+            .isNotNull();
+    }
+
+    @Test
+    public void testRevokeToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        tokenProvider.revokeToken(token);
+
+        verify(tokenRevocationService).revokeToken(anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void testKnownAuthoritiesAreShared() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), true);
+
+        GrantedAuthority authority = tokenProvider.getValidAuthentication(token).getAuthorities().iterator().next();
+
+        assertThat(authority).isSameAs(KnownAuthorities.get(AuthoritiesConstants.USER));
+        assertThat(tokenProvider.getValidAuthentication(otherToken).getAuthorities()).containsExactly(authority);
+    }
+
+    @Test
+    public void testUnknownAuthorities() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("john", "", Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority("ROLE_MERCHANT")));
+        String token = tokenProvider.createToken(authentication, false);
+
+        assertThat(tokenProvider.getValidAuthentication(token).getAuthorities()).extracting("authority")
+            .containsExactly(AuthoritiesConstants.ADMIN, "ROLE_MERCHANT");
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void testMalformedToken() {
+        tokenProvider.getValidAuthentication("not.a-token");
+    }
+
+    @Test(expected = ExpiredJwtException.class)
+    public void testExpiredToken() {
+        TokenProvider expiringTokenProvider = createTokenProvider(SECRET, -1, tokenRevocationService,
+            new MetricRegistry());
+        String token = expiringTokenProvider.createToken(createAuthentication(), false);
+
+        tokenProvider.getValidAuthentication(token);
+    }
+
+    private static TokenProvider createTokenProvider(String secret, int tokenValidityInSeconds,
+        TokenRevocationService tokenRevocationService, MetricRegistry metricRegistry) {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        jwt.setSecret(secret);
+        jwt.setTokenValidityInSeconds(tokenValidityInSeconds);
+        TokenProvider result = new TokenProvider(jHipsterProperties, tokenRevocationService, metricRegistry);
+        result.init();
+        return result;
+    }
+
+    private static Authentication createAuthentication() {
+        return new UsernamePasswordAuthenticationToken("john", "",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+    }
+}
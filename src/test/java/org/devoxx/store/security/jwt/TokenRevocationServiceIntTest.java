@@ -0,0 +1,135 @@
+package org.devoxx.store.security.jwt;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.devoxx.store.StoreApp;
+import org.devoxx.store.config.ApplicationProperties;
+import org.devoxx.store.domain.TokenRevocation;
+import org.devoxx.store.repository.TokenRevocationRepository;
+import org.devoxx.store.security.DomainUserDetailsService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TokenRevocationService. The revocations are kept in memory by the shared service, so each test
+ * uses its own token ids and logins.
+ *
+ * @see TokenRevocationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class)
+@Transactional
+public class TokenRevocationServiceIntTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void testRevokeToken() {
+        String jti = UUID.randomUUID().toString();
+        String otherJti = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+
+        tokenRevocationService.revokeToken(jti, Instant.now().plusSeconds(60));
+
+        assertThat(tokenRevocationService.isRevoked(jti, "revoke-token", now)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(otherJti, "revoke-token", now)).isFalse();
+        assertThat(tokenRevocationRepository.findAll()).extracting(TokenRevocation::getJti).contains(jti);
+    }
+
+    @Test
+    public void testRevokeTokensOfUser() {
+        String login = "revoke-" + UUID.randomUUID();
+        String jti = UUID.randomUUID().toString();
+        long issuedAt = System.currentTimeMillis() - 60000;
+
+        tokenRevocationService.revokeTokensOf(login);
+
+        assertThat(tokenRevocationService.isRevoked(jti, login, issuedAt)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(null, login, 0)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(jti, login, System.currentTimeMillis() + 1000)).isFalse();
+        assertThat(tokenRevocationService.isRevoked(jti, "other-" + login, issuedAt)).isFalse();
+    }
+
+    @Test
+    public void testRevocationsAreKeptByRebuild() {
+        String jti = UUID.randomUUID().toString();
+        String expiredJti = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        tokenRevocationService.revokeToken(jti, Instant.now().plusSeconds(60));
+        tokenRevocationService.revokeToken(expiredJti, Instant.now().minusSeconds(1));
+
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked(jti, "rebuild", now)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(expiredJti, "rebuild", now)).isFalse();
+        assertThat(tokenRevocationRepository.findAll()).extracting(TokenRevocation::getJti).doesNotContain(expiredJti);
+    }
+
+    @Test
+    public void testSyncRevocationsOfOtherInstances() {
+        String jti = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        // Revoked by another instance sharing the database
+        tokenRevocationRepository.saveAndFlush(TokenRevocation.ofToken(jti, Instant.now().plusSeconds(60)));
+        assertThat(tokenRevocationService.isRevoked(jti, "sync", now)).isFalse();
+
+        tokenRevocationService.sync();
+
+        assertThat(tokenRevocationService.isRevoked(jti, "sync", now)).isTrue();
+    }
+
+    @Test
+    public void testSyncLoadsRevocationsNotLoadedAtStartup() {
+        String jti = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        tokenRevocationRepository.saveAndFlush(TokenRevocation.ofToken(jti, Instant.now().plusSeconds(60)));
+        // An instance whose revocations could not be loaded when the application was ready
+        TokenRevocationService notLoadedService =
+            new TokenRevocationService(tokenRevocationRepository, jHipsterProperties, applicationProperties,
+                cacheManager);
+
+        notLoadedService.sync();
+
+        assertThat(notLoadedService.isRevoked(jti, "sync", now)).isTrue();
+    }
+
+    @Test
+    public void testSyncEvictsUserDetailsOfRevokedUsers() {
+        String login = "sync-" + UUID.randomUUID();
+        Cache cache = cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+        cache.put(login, "cached details");
+        cache.put("other-" + login, "cached details");
+        // The password changed on another instance sharing the database
+        tokenRevocationRepository.saveAndFlush(TokenRevocation.ofUser(login, Instant.now(),
+            Instant.now().plusSeconds(60)));
+
+        tokenRevocationService.sync();
+
+        assertThat(cache.get(login)).isNull();
+        assertThat(cache.get("other-" + login)).isNotNull();
+        cache.evict("other-" + login);
+    }
+}
@@ -4,18 +4,37 @@ import org.devoxx.store.StoreApp;
 import org.devoxx.store.domain.User;
 import org.devoxx.store.config.Constants;
 import org.devoxx.store.repository.UserRepository;
+import org.devoxx.store.security.AuthoritiesConstants;
+import org.devoxx.store.security.CurrentUserHolder;
+import org.devoxx.store.security.DomainUserDetailsService;
 import org.devoxx.store.service.dto.UserDTO;
 import java.time.ZonedDateTime;
 import org.devoxx.store.service.util.RandomUtil;
+import org.devoxx.store.web.rest.TestUtil;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.List;
 
@@ -37,6 +56,21 @@ public class UserServiceIntTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Autowired
+    private CurrentUserHolder currentUserHolder;
+
+    @Autowired
+    private EntityManager em;
+
     @Test
     public void assertThatUserMustExistToResetPassword() {
         Optional<User> maybeUser = userService.requestPasswordReset("john.doe@localhost");
@@ -114,8 +148,9 @@ public class UserServiceIntTest {
     public void testFindNotActivatedUsersByCreationDateBefore() {
         userService.removeNotActivatedUsers();
         ZonedDateTime now = ZonedDateTime.now();
-        List<User> users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minusDays(3));
-        assertThat(users).isEmpty();
+        List<Long> userIds = userRepository.findIdsOfNotActivatedUsersCreatedBefore(now.minusDays(3), 0L, 1, 0,
+            new PageRequest(0, 10));
+        assertThat(userIds).isEmpty();
     }
 
     @Test
@@ -126,4 +161,188 @@ public class UserServiceIntTest {
             .noneMatch(user -> Constants.ANONYMOUS_USER.equals(user.getLogin())))
             .isTrue();
     }
+
+    @Test
+    public void assertThatUserDetailsAreCachedByLowercaseLogin() {
+        Cache cache = cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+        cache.clear();
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("Admin");
+
+        assertThat(userDetails.getUsername()).isEqualTo("admin");
+        assertThat(cache.get("admin", UserDetails.class).getPassword()).isEqualTo(userDetails.getPassword());
+    }
+
+    @Test
+    public void assertThatUserIsFoundByNaturalId() {
+        Optional<User> user = userRepository.findOneByLogin("admin");
+
+        assertThat(user.isPresent()).isTrue();
+        assertThat(user.get().getEmail()).isEqualTo("admin@localhost");
+        assertThat(userRepository.findOneByLogin("unknown").isPresent()).isFalse();
+        assertThat(userRepository.findOneByLogin(null).isPresent()).isFalse();
+    }
+
+    @Test
+    public void assertThatUserIsCreatedWithoutReadingAuthorities() {
+        authorityRegistry.refresh();
+        TestUtil.resetStatementCount(em);
+
+        User user = userService.createUser("johnregistry", "johndoe", "John", "Doe", "john.registry@localhost",
+            "http://placehold.it/50x50", "en-US");
+
+        // The insert of the user and the one of its authority
+        TestUtil.assertStatementCount(em, 2);
+        assertThat(user.getAuthorities()).extracting("name").containsExactly(AuthoritiesConstants.USER);
+        assertThat(authorityRegistry.getReference("ROLE_UNKNOWN").isPresent()).isFalse();
+    }
+
+    @Test
+    public void assertThatRejectedInsertOnlyDetachesTheUser() {
+        User admin = userRepository.findOneByLogin("admin").get();
+
+        assertThatThrownBy(() -> userService.createUser("admin", "johndoe", "John", "Doe",
+            "admin.duplicate@localhost", "http://placehold.it/50x50", "en-US"))
+            .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(em.contains(admin)).isTrue();
+    }
+
+    @Test
+    public void assertThatNotActivatedUsersAreDeletedByChunk() {
+        User user = userService.createUser("johnpurge", "johndoe", "John", "Doe", "john.purge@localhost",
+            "http://placehold.it/50x50", "en-US");
+        Long adminId = userRepository.findOneByLogin("admin").get().getId();
+
+        List<Long> ids = userRepository.findIdsOfNotActivatedUsersCreatedBefore(ZonedDateTime.now().plusDays(1),
+            0L, 1, 0, new PageRequest(0, 1000));
+        assertThat(ids).contains(user.getId()).doesNotContain(adminId).isSorted();
+        int partitionIndex = (int) (user.getId() % 2);
+        assertThat(userRepository.findIdsOfNotActivatedUsersCreatedBefore(ZonedDateTime.now().plusDays(1),
+            0L, 2, partitionIndex, new PageRequest(0, 1000))).contains(user.getId());
+        assertThat(userRepository.findIdsOfNotActivatedUsersCreatedBefore(ZonedDateTime.now().plusDays(1),
+            0L, 2, 1 - partitionIndex, new PageRequest(0, 1000))).doesNotContain(user.getId());
+
+        assertThat(userRepository.deleteNotActivatedUsers(Arrays.asList(user.getId(), adminId))).isEqualTo(1);
+        em.clear();
+        assertThat(userRepository.findOneByLogin("johnpurge").isPresent()).isFalse();
+        assertThat(userRepository.findOneWithAuthoritiesByLogin("admin").get().getAuthorities()).isNotEmpty();
+    }
+
+    @Test
+    public void assertThatExpiredResetKeysAreCleared() {
+        User user = userService.createUser("johnsweep", "johndoe", "John", "Doe", "John.Sweep@localhost",
+            "http://placehold.it/50x50", "en-US");
+        user.setActivated(true);
+        user.setResetDate(ZonedDateTime.now().minusHours(25));
+        user.setResetKey(RandomUtil.generateResetKey());
+        userRepository.saveAndFlush(user);
+        ZonedDateTime oneDayAgo = ZonedDateTime.now().minusHours(24);
+
+        List<Long> ids = userRepository.findIdsOfResetKeysIssuedBefore(oneDayAgo, 0L, new PageRequest(0, 1000));
+        assertThat(ids).contains(user.getId());
+
+        assertThat(userRepository.clearResetKeys(ids, oneDayAgo)).isEqualTo(ids.size());
+        em.clear();
+        User sweptUser = userRepository.findOne(user.getId());
+        assertThat(sweptUser.getResetKey()).isNull();
+        assertThat(sweptUser.getResetDate()).isNull();
+        assertThat(sweptUser.getEmail()).isEqualTo("john.sweep@localhost");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatUserDetailsAreEvictedWhenPasswordIsReset() {
+        Cache cache = cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+        User user = createActivatedUser("johnreset");
+        try {
+            user.setResetKey(RandomUtil.generateResetKey());
+            user.setResetDate(ZonedDateTime.now());
+            userRepository.save(user);
+            userDetailsService.loadUserByUsername("johnreset");
+            assertThat(cache.get("johnreset")).isNotNull();
+
+            assertThat(userService.completePasswordReset("johnreset2", user.getResetKey()).isPresent()).isTrue();
+
+            assertThat(cache.get("johnreset")).isNull();
+        } finally {
+            userService.deleteUser("johnreset");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatUserDetailsAreEvictedWhenPasswordIsChanged() {
+        Cache cache = cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+        createActivatedUser("johnchange");
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(new UsernamePasswordAuthenticationToken("johnchange", "johndoe"));
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            String previousPassword = userDetailsService.loadUserByUsername("johnchange").getPassword();
+
+            userService.changePassword("johnchange2");
+
+            assertThat(cache.get("johnchange")).isNull();
+            assertThat(userDetailsService.loadUserByUsername("johnchange").getPassword()).isNotEqualTo(previousPassword);
+        } finally {
+            SecurityContextHolder.clearContext();
+            userService.deleteUser("johnchange");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatUserDetailsAreEvictedWhenUserIsDeleted() {
+        Cache cache = cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+        createActivatedUser("johndelete");
+        userDetailsService.loadUserByUsername("johndelete");
+        assertThat(cache.get("johndelete")).isNotNull();
+
+        userService.deleteUser("johndelete");
+
+        assertThat(cache.get("johndelete")).isNull();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatCurrentUserIsLoadedAgainWhenUpdateFails() {
+        createActivatedUser("johnupdate");
+        createActivatedUser("johnother");
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(new UsernamePasswordAuthenticationToken("johnupdate", "johndoe"));
+        SecurityContextHolder.setContext(securityContext);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            User currentUser = currentUserHolder.getCurrentUser().get();
+
+            // The e-mail address is used by another user, so the transaction fails when it is committed
+            assertThatThrownBy(() -> userService.updateUser("John", "Update", "johnother@localhost", "en"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+            User reloadedUser = currentUserHolder.getCurrentUser().get();
+            assertThat(reloadedUser).isNotSameAs(currentUser);
+            assertThat(reloadedUser.getEmail()).isEqualTo("johnupdate@localhost");
+
+            // A committed update keeps the current user of the request, with its changes
+            userService.updateUser("John", "Update", "johnupdate@localhost", "en");
+            assertThat(currentUserHolder.getCurrentUser().get()).isSameAs(reloadedUser);
+            assertThat(reloadedUser.getLastName()).isEqualTo("Update");
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            SecurityContextHolder.clearContext();
+            userService.deleteUser("johnupdate");
+            userService.deleteUser("johnother");
+        }
+    }
+
+    /**
+     * Create a user in its own transaction, as the user details are evicted once the transactions are committed.
+     */
+    private User createActivatedUser(String login) {
+        User user = userService.createUser(login, "johndoe", "John", "Doe", login + "@localhost",
+            "http://placehold.it/50x50", "en-US");
+        user.setActivated(true);
+        return userRepository.save(user);
+    }
 }
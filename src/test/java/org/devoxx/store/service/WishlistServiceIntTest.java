@@ -0,0 +1,120 @@
+package org.devoxx.store.service;
+
+import org.devoxx.store.StoreApp;
+import org.devoxx.store.domain.User;
+import org.devoxx.store.domain.Wish;
+import org.devoxx.store.domain.Wishlist;
+import org.devoxx.store.repository.UserRepository;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the WishlistService.
+ * <p>
+ * Not transactional, as the cached wishlists are evicted once the transactions are committed.
+ * </p>
+ *
+ * @see WishlistService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class)
+public class WishlistServiceIntTest {
+
+    private static final String LOGIN = "wishlist-cache";
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishService wishService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache cache;
+
+    private User user;
+
+    @Before
+    public void setup() {
+        cache = cacheManager.getCache(WishlistService.WISHLISTS_BY_USER_CACHE);
+        user = new User();
+        user.setLogin(LOGIN);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail(LOGIN + "@localhost");
+        user.setLangKey("en");
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @After
+    public void cleanup() {
+        wishlistService.findByUser(LOGIN).forEach(wishlist -> wishlistService.delete(wishlist.getId()));
+        userRepository.delete(user.getId());
+        cache.evict(LOGIN);
+    }
+
+    @Test
+    public void assertThatWishlistsOfUserAreEvictedWhenWishlistIsCreated() {
+        cache.put(LOGIN, Collections.emptyList());
+
+        wishlistService.save(createWishlist());
+
+        assertThat(cache.get(LOGIN)).isNull();
+    }
+
+    @Test
+    public void assertThatWishlistsOfUserAreEvictedWhenWishlistIsUpdated() {
+        Wishlist wishlist = wishlistService.save(createWishlist());
+        cache.put(LOGIN, Collections.singletonList(wishlist));
+
+        wishlistService.save(wishlist.name("updated"));
+
+        assertThat(cache.get(LOGIN)).isNull();
+    }
+
+    @Test
+    public void assertThatWishlistsOfUserAreEvictedWhenWishlistIsDeleted() {
+        Wishlist wishlist = wishlistService.save(createWishlist());
+        cache.put(LOGIN, Collections.singletonList(wishlist));
+
+        wishlistService.delete(wishlist.getId());
+
+        assertThat(cache.get(LOGIN)).isNull();
+    }
+
+    @Test
+    public void assertThatWishlistsOfUserAreEvictedWhenWishChanges() {
+        Wishlist wishlist = wishlistService.save(createWishlist());
+        wishlistService.findByUser(LOGIN);
+        assertThat(cache.get(LOGIN)).isNotNull();
+
+        Wish wish = wishService.save(new Wish().productId(1L).price(BigDecimal.TEN).wishlist(wishlist));
+        assertThat(cache.get(LOGIN)).isNull();
+
+        wishlistService.findByUser(LOGIN);
+        wishService.delete(wish.getId());
+        assertThat(cache.get(LOGIN)).isNull();
+    }
+
+    private Wishlist createWishlist() {
+        return new Wishlist().name("wishlist").creationDate(LocalDate.now()).hidden(false).user(user);
+    }
+}
@@ -0,0 +1,40 @@
+package org.devoxx.store.service.analytics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for the HyperLogLog sketch.
+ *
+ * @see HyperLogLog
+ */
+public class HyperLogLogUnitTest {
+
+    @Test
+    public void testEmptySketch() {
+        assertThat(new HyperLogLog(11).estimate()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDuplicatesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog(11);
+        for (int i = 0; i < 10; i++) {
+            for (long value = 1; value <= 100; value++) {
+                sketch.add(value);
+            }
+        }
+        assertThat(sketch.estimate()).isCloseTo(100, within(5L));
+    }
+
+    @Test
+    public void testLargeCardinality() {
+        HyperLogLog sketch = new HyperLogLog(11);
+        for (long value = 0; value < 1_000_000; value++) {
+            sketch.add(value);
+        }
+        // Within 4 standard errors
+        assertThat(sketch.estimate()).isCloseTo(1_000_000, within(92_000L));
+    }
+}
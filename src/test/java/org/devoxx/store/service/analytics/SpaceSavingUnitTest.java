@@ -0,0 +1,91 @@
+package org.devoxx.store.service.analytics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SpaceSaving summary.
+ *
+ * @see SpaceSaving
+ */
+public class SpaceSavingUnitTest {
+
+    private final List<Long> released = new ArrayList<>();
+
+    private final SpaceSaving summary = new SpaceSaving(3, released::add);
+
+    @Test
+    public void testCountsExactlyWithinCapacity() {
+        increment(1, 5);
+        increment(2, 3);
+        increment(3, 7);
+        assertThat(summary.getTop(2)).containsExactly(3, 1);
+        assertThat(summary.getCount(2)).isEqualTo(3);
+        assertThat(summary.getError(2)).isEqualTo(0);
+        assertThat(released).isEmpty();
+    }
+
+    @Test
+    public void testNewItemReplacesLeastFrequent() {
+        increment(1, 5);
+        increment(2, 3);
+        increment(3, 7);
+        increment(4, 1);
+        assertThat(released).containsExactly(2L);
+        assertThat(summary.contains(2)).isFalse();
+        // The count of the new item is overestimated by the count of the replaced item
+        assertThat(summary.getCount(4)).isEqualTo(4);
+        assertThat(summary.getError(4)).isEqualTo(3);
+        assertThat(summary.getTop(3)).containsExactly(3, 1, 4);
+    }
+
+    @Test
+    public void testHeavyHittersAreKept() {
+        // Two frequent items, among many items seen once which keep replacing each other
+        for (long item = 100; item < 1000; item++) {
+            summary.increment(item);
+            increment(1, 3);
+            increment(2, 2);
+        }
+        assertThat(summary.getTop(2)).containsExactly(1, 2);
+        assertThat(summary.getCount(1)).isEqualTo(2700);
+        assertThat(summary.getError(1)).isEqualTo(0);
+    }
+
+    @Test
+    public void testClearRemovesAllCounters() {
+        increment(1, 5);
+        increment(2, 3);
+        summary.clear();
+        assertThat(summary.contains(1)).isFalse();
+        assertThat(summary.getTop(3)).isEmpty();
+        assertThat(released).isEmpty();
+
+        increment(2, 1);
+        assertThat(summary.getCount(2)).isEqualTo(1);
+        assertThat(summary.getError(2)).isEqualTo(0);
+    }
+
+    @Test
+    public void testDecrementReleasesItemAtZero() {
+        increment(1, 2);
+        increment(2, 1);
+        summary.decrement(1);
+        summary.decrement(2);
+        summary.decrement(42);
+        assertThat(summary.getCount(1)).isEqualTo(1);
+        assertThat(summary.contains(2)).isFalse();
+        assertThat(released).containsExactly(2L);
+        assertThat(summary.getTop(3)).containsExactly(1);
+    }
+
+    private void increment(long item, int times) {
+        for (int i = 0; i < times; i++) {
+            summary.increment(item);
+        }
+    }
+}
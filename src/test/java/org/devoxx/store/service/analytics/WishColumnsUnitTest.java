@@ -0,0 +1,144 @@
+package org.devoxx.store.service.analytics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the WishColumns in-memory copy of the wishes.
+ *
+ * @see WishColumns
+ */
+public class WishColumnsUnitTest {
+
+    private WishColumns columns;
+
+    @Before
+    public void setup() {
+        columns = new WishColumns();
+    }
+
+    @Test
+    public void testPutReplacesWish() {
+        columns.put(1, 10, 500, null);
+        columns.put(1, 10, 700, null);
+        assertThat(columns.size()).isEqualTo(1);
+        assertThat(columns.getSortedPricesOfProduct(10)).containsExactly(700);
+    }
+
+    @Test
+    public void testRemoveMovesLastRow() {
+        columns.put(1, 10, 100, null);
+        columns.put(2, 10, 200, null);
+        columns.put(3, 10, 300, null);
+        columns.remove(1);
+        columns.remove(42);
+        assertThat(columns.size()).isEqualTo(2);
+        // The last row took the place of the removed one, and can still be replaced and removed
+        columns.put(3, 10, 350, null);
+        assertThat(columns.getSortedPricesOfProduct(10)).containsExactly(200, 350);
+        columns.remove(3);
+        assertThat(columns.getSortedPricesOfProduct(10)).containsExactly(200);
+    }
+
+    @Test
+    public void testManyWishes() {
+        // Enough wishes to grow the arrays, rehash the map and scan in parallel
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            columns.put(i, i % 10, i, (long) i % 100);
+        }
+        for (int i = 0; i < count; i += 2) {
+            columns.remove(i);
+        }
+        assertThat(columns.size()).isEqualTo(count / 2);
+        long[] prices = columns.getSortedPricesOfProduct(3);
+        assertThat(prices).hasSize(count / 10);
+        assertThat(prices[0]).isEqualTo(3);
+        assertThat(Arrays.stream(columns.countByPriceBand(count / 4, 10)).sum()).isEqualTo(count / 2);
+        assertThat(columns.getWishlistValues()).hasSize(50);
+    }
+
+    @Test
+    public void testCountByPriceBand() {
+        columns.put(1, 10, 0, null);
+        columns.put(2, 10, 999, null);
+        columns.put(3, 10, 1000, null);
+        columns.put(4, 10, 5000, null);
+        assertThat(columns.countByPriceBand(1000, 10)).containsExactly(2, 1, 0, 0, 0, 1);
+        // The last band holds all the higher prices
+        assertThat(columns.countByPriceBand(1000, 2)).containsExactly(2, 2);
+    }
+
+    @Test
+    public void testCountByPriceBandWithoutWishes() {
+        assertThat(columns.countByPriceBand(1000, 10)).isEmpty();
+    }
+
+    @Test
+    public void testWishlistValues() {
+        columns.put(1, 10, 100, 7L);
+        columns.put(2, 11, 200, 7L);
+        columns.put(3, 12, 400, 8L);
+        columns.put(4, 12, 800, null);
+        columns.put(5, 13, 1600, 9L);
+        columns.remove(5);
+        long[] values = columns.getWishlistValues();
+        Arrays.sort(values);
+        assertThat(values).containsExactly(300, 400);
+        assertThat(WishColumns.countByBand(values, 250, 10)).containsExactly(0, 2);
+    }
+
+    @Test
+    public void testWishlistOrdinalIsReleasedWithLastWish() {
+        columns.put(1, 10, 100, 7L);
+        columns.put(2, 11, 200, 8L);
+        columns.put(3, 12, 400, 8L);
+        assertThat(columns.wishlistCount()).isEqualTo(2);
+
+        // The wishlist 7 loses its only wish, and the wishlist 8 one of its wishes
+        columns.put(1, 10, 100, null);
+        columns.remove(2);
+        assertThat(columns.wishlistCount()).isEqualTo(1);
+        assertThat(columns.getWishlistValues()).containsExactly(400);
+
+        // The new wishlist takes the released ordinal
+        columns.put(4, 13, 800, 9L);
+        assertThat(columns.wishlistCount()).isEqualTo(2);
+        long[] values = columns.getWishlistValues();
+        Arrays.sort(values);
+        assertThat(values).containsExactly(400, 800);
+
+        columns.remove(3);
+        columns.remove(4);
+        assertThat(columns.wishlistCount()).isZero();
+        assertThat(columns.getWishlistValues()).isEmpty();
+    }
+
+    @Test
+    public void testWishStayingInItsWishlistKeepsIt() {
+        columns.put(1, 10, 100, 7L);
+        columns.put(1, 10, 300, 7L);
+        assertThat(columns.wishlistCount()).isEqualTo(1);
+        assertThat(columns.getWishlistValues()).containsExactly(300);
+    }
+
+    @Test
+    public void testClearForgetsWishesAndWishlists() {
+        columns.put(1, 10, 100, 7L);
+        columns.put(2, 11, 200, 8L);
+
+        columns.clear();
+
+        assertThat(columns.size()).isZero();
+        assertThat(columns.wishlistCount()).isZero();
+        assertThat(columns.getWishlistValues()).isEmpty();
+        columns.put(1, 10, 300, 9L);
+        assertThat(columns.wishlistCount()).isEqualTo(1);
+        assertThat(columns.getWishlistValues()).containsExactly(300);
+        assertThat(columns.getSortedPricesOfProduct(10)).containsExactly(300);
+    }
+}
@@ -0,0 +1,111 @@
+package org.devoxx.store.service.lease;
+
+import org.devoxx.store.StoreApp;
+import org.devoxx.store.domain.Lease;
+import org.devoxx.store.repository.LeaseRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the LeaseService.
+ * <p>
+ * The leases are taken in their own transactions, so the tests are not transactional.
+ * </p>
+ *
+ * @see LeaseService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class)
+public class LeaseServiceIntTest {
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    private LeaseRepository leaseRepository;
+
+    @After
+    public void deleteLeases() {
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatJobRunsUnderItsLease() throws Throwable {
+        Object result = leaseService.run("test-job", 60000, 1, () -> {
+            assertThat(Partition.current()).isSameAs(Partition.ALL);
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        Lease lease = leaseRepository.findOne("test-job");
+        assertThat(lease.getOwner()).isEqualTo(leaseService.getOwner());
+        assertThat(lease.getLockedUntil()).isGreaterThan(Instant.now());
+    }
+
+    @Test
+    public void assertThatJobLeasedByAnotherNodeIsSkipped() throws Throwable {
+        leaseRepository.saveAndFlush(Lease.create("test-job", "other-node", Instant.now(),
+            Instant.now().plusSeconds(60)));
+
+        Object result = leaseService.run("test-job", 60000, 1, () -> {
+            fail("The job is leased by another node");
+            return "done";
+        });
+
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void assertThatExpiredLeaseIsTaken() throws Throwable {
+        leaseRepository.saveAndFlush(Lease.create("test-job", "other-node", Instant.now().minusSeconds(120),
+            Instant.now().minusSeconds(60)));
+
+        Object result = leaseService.run("test-job", 60000, 1, () -> "done");
+
+        assertThat(result).isEqualTo("done");
+        assertThat(leaseRepository.findOne("test-job").getOwner()).isEqualTo(leaseService.getOwner());
+    }
+
+    @Test
+    public void assertThatPartitionsLeasedByAnotherNodeAreSkipped() throws Throwable {
+        leaseRepository.saveAndFlush(Lease.create("test-job#1", "other-node", Instant.now(),
+            Instant.now().plusSeconds(60)));
+        List<Integer> partitions = new ArrayList<>();
+
+        leaseService.run("test-job", 60000, 3, () -> {
+            Partition partition = Partition.current();
+            assertThat(partition.getCount()).isEqualTo(3);
+            assertThat(partition.contains(partition.getIndex() + 3L)).isTrue();
+            partitions.add(partition.getIndex());
+            return null;
+        });
+
+        assertThat(partitions).containsOnly(0, 2).hasSize(2);
+        assertThat(Partition.current()).isSameAs(Partition.ALL);
+    }
+
+    @Test
+    public void assertThatLeaseIsReleasedWhenJobFails() throws Throwable {
+        try {
+            leaseService.run("test-job", 60000, 1, () -> {
+                throw new IllegalStateException("failed");
+            });
+            fail("The failure of the job is thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("failed");
+        }
+
+        assertThat(leaseRepository.findOne("test-job").getLockedUntil()).isLessThanOrEqualTo(Instant.now());
+    }
+}
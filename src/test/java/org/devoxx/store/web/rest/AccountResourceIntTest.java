@@ -6,10 +6,12 @@ import org.devoxx.store.domain.User;
 import org.devoxx.store.repository.AuthorityRepository;
 import org.devoxx.store.repository.UserRepository;
 import org.devoxx.store.security.AuthoritiesConstants;
+import org.devoxx.store.security.CurrentUserHolder;
 import org.devoxx.store.service.MailService;
 import org.devoxx.store.service.UserService;
 import org.devoxx.store.service.dto.UserDTO;
 import org.devoxx.store.web.rest.vm.ManagedUserVM;
+import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -18,11 +20,13 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -51,6 +55,12 @@ public class AccountResourceIntTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CurrentUserHolder currentUserHolder;
+
+    @Autowired
+    private EntityManager em;
+
     @Mock
     private UserService mockUserService;
 
@@ -67,10 +77,10 @@ public class AccountResourceIntTest {
         doNothing().when(mockMailService).sendActivationEmail(anyObject());
 
         AccountResource accountResource =
-            new AccountResource(userRepository, userService, mockMailService);
+            new AccountResource(userRepository, userService, mockMailService, currentUserHolder);
 
         AccountResource accountUserMockResource =
-            new AccountResource(userRepository, mockUserService, mockMailService);
+            new AccountResource(userRepository, mockUserService, mockMailService, currentUserHolder);
 
         this.restMvc = MockMvcBuilders.standaloneSetup(accountResource).build();
         this.restUserMockMvc = MockMvcBuilders.standaloneSetup(accountUserMockResource).build();
@@ -392,4 +402,51 @@ public class AccountResourceIntTest {
         Optional<User> user = userRepository.findOneByEmail("funky@example.com");
         assertThat(user.isPresent()).isFalse();
     }
+
+    @Test
+    @WithMockUser("save-account")
+    public void testSaveAccount() throws Exception {
+        // Not transactional, so that the statements of the request are those of its own transactions, flushed
+        User user = new User();
+        user.setLogin("save-account");
+        user.setEmail("save-account@example.com");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        userRepository.saveAndFlush(user);
+
+        UserDTO userDTO = new UserDTO(
+            null,                   // id
+            "save-account",         // login
+            "Save",                 // firstName
+            "Account",              // lastName
+            "save-account@example.com",    // e-mail
+            true,                   // activated
+            "http://placehold.it/50x50", //imageUrl
+            "en",                   // langKey
+            null,                   // createdBy
+            null,                   // createdDate
+            null,                   // lastModifiedBy
+            null,                   // lastModifiedDate
+            new HashSet<>(Arrays.asList(AuthoritiesConstants.USER))
+        );
+
+        try {
+            TestUtil.resetStatementCount(em);
+            restMvc.perform(
+                post("/api/account")
+                    .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                    .content(TestUtil.convertObjectToJsonBytes(userDTO)))
+                .andExpect(status().isOk());
+            // The current user is loaded once with its authorities, then updated by the transaction of the service:
+            // its unchanged e-mail address is not looked up
+            TestUtil.assertStatementCount(em, 2);
+
+            User updatedUser = userRepository.findOneByLogin("save-account").get();
+            assertThat(updatedUser.getFirstName()).isEqualTo("Save");
+            assertThat(updatedUser.getLastName()).isEqualTo("Account");
+            assertThat(updatedUser.getLangKey()).isEqualTo("en");
+        } finally {
+            userRepository.delete(user);
+        }
+    }
 }
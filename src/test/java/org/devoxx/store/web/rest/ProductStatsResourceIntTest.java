@@ -0,0 +1,78 @@
+package org.devoxx.store.web.rest;
+
+import org.devoxx.store.StoreApp;
+
+import org.devoxx.store.service.analytics.WishSketchService;
+import org.devoxx.store.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the ProductStatsResource REST controller.
+ *
+ * @see ProductStatsResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class)
+public class ProductStatsResourceIntTest {
+
+    @Autowired
+    private WishSketchService wishSketchService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restProductStatsMockMvc;
+
+    @Before
+    public void setup() {
+        ProductStatsResource productStatsResource = new ProductStatsResource(wishSketchService);
+        this.restProductStatsMockMvc = MockMvcBuilders.standaloneSetup(productStatsResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void getTopProducts() throws Exception {
+        restProductStatsMockMvc.perform(get("/api/wishes/top-products?size=5"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    public void getTopProductsAfterReload() throws Exception {
+        wishSketchService.loadWishes();
+        String topProducts = wishSketchService.getTopProducts(10).toString();
+
+        // The sketches are replaced, not added to
+        wishSketchService.loadWishes();
+        assertThat(wishSketchService.getTopProducts(10).toString()).isEqualTo(topProducts);
+    }
+
+    @Test
+    public void getTopProductsWithInvalidSize() throws Exception {
+        restProductStatsMockMvc.perform(get("/api/wishes/top-products?size=-1"))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-storeApp-error", "error.invalidsize"));
+
+        restProductStatsMockMvc.perform(get("/api/wishes/top-products?size=0"))
+            .andExpect(status().isBadRequest());
+    }
+}
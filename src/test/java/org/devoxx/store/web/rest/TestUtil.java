@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.MediaType;
 
+import javax.persistence.EntityManager;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.time.ZonedDateTime;
@@ -100,6 +103,30 @@ public class TestUtil {
         return new ZonedDateTimeMatcher(date);
     }
 
+    /**
+     * Reset the JDBC statement counter, before calling the endpoint whose query budget is checked.
+     *
+     * <p>Statements are counted by Hibernate, as "hibernate.generate_statistics" is enabled in the test configuration.</p>
+     */
+    public static void resetStatementCount(EntityManager em) {
+        getStatistics(em).clear();
+    }
+
+    /**
+     * Verifies the number of JDBC statements prepared since the last call to {@link #resetStatementCount(EntityManager)}.
+     */
+    public static void assertStatementCount(EntityManager em, long expectedCount) {
+        assertThat(getStatistics(em).getPrepareStatementCount())
+            .as("number of JDBC statements")
+            .isEqualTo(expectedCount);
+    }
+
+    private static Statistics getStatistics(EntityManager em) {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        assertThat(statistics.isStatisticsEnabled()).as("Hibernate statistics are enabled").isTrue();
+        return statistics;
+    }
+
     /**
      * Verifies the equals/hashcode contract on the domain object.
      */
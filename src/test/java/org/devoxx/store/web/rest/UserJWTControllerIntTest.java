@@ -0,0 +1,81 @@
+package org.devoxx.store.web.rest;
+
+import org.devoxx.store.StoreApp;
+import org.devoxx.store.config.ApplicationProperties;
+import org.devoxx.store.security.LoginThrottle;
+import org.devoxx.store.security.jwt.JWTConfigurer;
+import org.devoxx.store.web.rest.vm.LoginVM;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the UserJWTController REST controller, behind the embedded server: the address of the client is
+ * resolved by the server from the headers of the proxies, which MockMvc does not do.
+ *
+ * @see UserJWTController
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StoreApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class UserJWTControllerIntTest {
+
+    private static final String FORWARDED_ADDRESS = "203.0.113.7";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Test
+    public void testAuthorizeIsThrottledByForwardedAddress() {
+        int maxFailures = applicationProperties.getLoginThrottle().getMaxFailuresPerAddress();
+        for (int i = 0; i < maxFailures; i++) {
+            loginThrottle.recordFailure("forwarded-" + i, FORWARDED_ADDRESS);
+        }
+        LoginVM login = new LoginVM();
+        login.setUsername("forwarded-login");
+        login.setPassword("wrong-password");
+
+        // The test client is a proxy of the local network, forwarding the address of the throttled client
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", FORWARDED_ADDRESS);
+        ResponseEntity<String> response =
+            restTemplate.postForEntity("/api/authenticate", new HttpEntity<>(login, headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        // The proxy itself is not throttled
+        response = restTemplate.postForEntity("/api/authenticate", new HttpEntity<>(login), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAuthorizeReturnsTokenInHeader() {
+        LoginVM login = new LoginVM();
+        login.setUsername("user");
+        login.setPassword("user");
+
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/authenticate", login, Map.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("id_token")).isNotNull();
+        assertThat(response.getHeaders().getFirst(JWTConfigurer.AUTHORIZATION_HEADER))
+            .isEqualTo("Bearer " + response.getBody().get("id_token"));
+    }
+}
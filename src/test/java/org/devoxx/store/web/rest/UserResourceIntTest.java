@@ -5,6 +5,7 @@ import org.devoxx.store.domain.User;
 import org.devoxx.store.repository.UserRepository;
 import org.devoxx.store.service.UserService;
 import org.devoxx.store.service.MailService;
+import org.devoxx.store.web.rest.util.PaginationUtil;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
@@ -12,14 +13,20 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -41,6 +48,9 @@ public class UserResourceIntTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
+
     private MockMvc restUserMockMvc;
 
     /**
@@ -67,7 +77,8 @@ public class UserResourceIntTest {
     @Before
     public void setup() {
         UserResource userResource = new UserResource(userRepository, mailService, userService);
-        this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userResource).build();
+        this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userResource)
+            .setCustomArgumentResolvers(pageableArgumentResolver).build();
     }
 
     @Test
@@ -79,6 +90,36 @@ public class UserResourceIntTest {
                 .andExpect(jsonPath("$.lastName").value("Administrator"));
     }
 
+    @Test
+    @Transactional
+    public void testGetUsersByCursor() throws Exception {
+        // Logins sorted after the ones of the default users
+        for (String login : new String[] {"zz-cursor-a", "zz-cursor-b", "zz-cursor-c"}) {
+            User user = new User();
+            user.setLogin(login);
+            user.setPassword(RandomStringUtils.random(60));
+            user.setActivated(true);
+            user.setEmail(login + "@localhost");
+            user.setLangKey("en");
+            userRepository.saveAndFlush(user);
+        }
+
+        restUserMockMvc.perform(get("/api/users?cursor={cursor}&size=2", PaginationUtil.encodeCursor("zz-cursor"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].login").value(contains("zz-cursor-a", "zz-cursor-b")))
+                .andExpect(header().string(HttpHeaders.LINK,
+                    containsString("cursor=" + PaginationUtil.encodeCursor("zz-cursor-b") + "&size=2>; rel=\"next\"")))
+                .andExpect(header().doesNotExist("X-Total-Count"));
+
+        // Follow the next cursor to the last slice, which has no next link
+        restUserMockMvc.perform(get("/api/users?cursor={cursor}&size=2", PaginationUtil.encodeCursor("zz-cursor-b"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].login").value(contains("zz-cursor-c")))
+                .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))));
+    }
+
     @Test
     public void testGetUnknownUser() throws Exception {
         restUserMockMvc.perform(get("/api/users/unknown")
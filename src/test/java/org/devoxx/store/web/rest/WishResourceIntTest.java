@@ -1,12 +1,20 @@
 package org.devoxx.store.web.rest;
 
 import org.devoxx.store.StoreApp;
+import org.devoxx.store.config.ApplicationProperties;
 
+import org.devoxx.store.domain.User;
 import org.devoxx.store.domain.Wish;
+import org.devoxx.store.domain.Wishlist;
 import org.devoxx.store.repository.WishRepository;
+import org.devoxx.store.repository.WishlistRepository;
+import org.devoxx.store.service.ImportTooLargeException;
+import org.devoxx.store.service.WishImportService;
 import org.devoxx.store.service.WishService;
 import org.devoxx.store.web.rest.errors.ExceptionTranslator;
+import org.devoxx.store.web.rest.util.PaginationUtil;
 
+import com.jayway.jsonpath.JsonPath;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,19 +22,30 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -41,6 +60,7 @@ public class WishResourceIntTest {
 
     private static final Long DEFAULT_PRODUCT_ID = 1L;
     private static final Long UPDATED_PRODUCT_ID = 2L;
+    private static final Long IMPORTED_PRODUCT_ID = 3L;
 
     private static final BigDecimal DEFAULT_PRICE = new BigDecimal(0);
     private static final BigDecimal UPDATED_PRICE = new BigDecimal(1);
@@ -48,9 +68,18 @@ public class WishResourceIntTest {
     @Autowired
     private WishRepository wishRepository;
 
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
     @Autowired
     private WishService wishService;
 
+    @Autowired
+    private WishImportService wishImportService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -70,7 +99,8 @@ public class WishResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        WishResource wishResource = new WishResource(wishService);
+        WishResource wishResource = new WishResource(wishService, wishImportService,
+            jacksonMessageConverter.getObjectMapper());
         this.restWishMockMvc = MockMvcBuilders.standaloneSetup(wishResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -135,6 +165,146 @@ public class WishResourceIntTest {
         assertThat(wishList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    public void createWishes() throws Exception {
+        int databaseSizeBeforeCreate = wishRepository.findAll().size();
+
+        // Create two wishes in a single batch
+        Wish otherWish = createEntity(em).productId(UPDATED_PRODUCT_ID);
+        MvcResult result = restWishMockMvc.perform(post("/api/wishes/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(wish, otherWish))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$").isArray())
+            .andReturn();
+
+        // The ids are returned in the order of the request
+        List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$");
+        assertThat(ids).hasSize(2);
+        assertThat(wishRepository.findOne(ids.get(0).longValue()).getProductId()).isEqualTo(DEFAULT_PRODUCT_ID);
+        assertThat(wishRepository.findOne(ids.get(1).longValue()).getProductId()).isEqualTo(UPDATED_PRODUCT_ID);
+        assertThat(wishRepository.findAll()).hasSize(databaseSizeBeforeCreate + 2);
+    }
+
+    @Test
+    @Transactional
+    public void createWishesWithInvalidWish() throws Exception {
+        int databaseSizeBeforeCreate = wishRepository.findAll().size();
+
+        // The second wish has no price, so none of the wishes are created
+        Wish invalidWish = createEntity(em).price(null);
+        restWishMockMvc.perform(post("/api/wishes/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(wish, invalidWish))))
+            .andExpect(status().isBadRequest());
+
+        // Discard the wishes that were not flushed
+        em.clear();
+        List<Wish> wishList = wishRepository.findAll();
+        assertThat(wishList).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    public void importWishesWithInvalidHeader() throws Exception {
+        restWishMockMvc.perform(post("/api/wishes/import")
+            .contentType("text/csv")
+            .content("id,name\n1,test\n".getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void importWishesReportsInvalidRows() throws Exception {
+        // Rows are written in their own transactions: only invalid rows are used, so nothing is left in the database
+        restWishMockMvc.perform(post("/api/wishes/import")
+            .contentType("text/csv")
+            .content("productId,price\n1,-1\nnot-a-number,2\n,3\n".getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.importedCount").value(0))
+            .andExpect(jsonPath("$.rejectedCount").value(3))
+            .andExpect(jsonPath("$.errors.[*].line").value(contains(2, 3, 4)));
+    }
+
+    @Test
+    public void importWishesLargerThanTheMaximumSize() throws Exception {
+        long maxFileSize = applicationProperties.getWishImport().getMaxFileSize();
+        // Only the header fits
+        applicationProperties.getWishImport().setMaxFileSize(16);
+        byte[] csv = "productId,price\n1,-1\n".getBytes(StandardCharsets.UTF_8);
+        try {
+            // The length of the file is known in advance
+            restWishMockMvc.perform(post("/api/wishes/import")
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(header().string("X-storeApp-error", "error.importsize"));
+
+            // The length of the file is not known, as when it is sent in chunks
+            assertThatThrownBy(() -> wishImportService.importCsv(new ByteArrayInputStream(csv)))
+                .isInstanceOf(ImportTooLargeException.class);
+        } finally {
+            applicationProperties.getWishImport().setMaxFileSize(maxFileSize);
+        }
+    }
+
+    @Test
+    public void importWishesInSeveralBatches() throws Exception {
+        // Rows are written in their own transactions, by batches of 500 wishes: the imported wishes are deleted after
+        int databaseSizeBeforeImport = wishRepository.findAll().size();
+        StringBuilder csv = new StringBuilder("productId,price\n");
+        for (int i = 1; i <= 1100; i++) {
+            csv.append(IMPORTED_PRODUCT_ID).append(',').append(i).append('\n');
+        }
+
+        try {
+            restWishMockMvc.perform(post("/api/wishes/import")
+                .contentType("text/csv")
+                .content(csv.toString().getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1100))
+                .andExpect(jsonPath("$.rejectedCount").value(0));
+
+            assertThat(findImportedPrices()).hasSize(1100).contains(1, 1100);
+            assertThat(wishRepository.findAll()).hasSize(databaseSizeBeforeImport + 1100);
+        } finally {
+            wishRepository.deleteInBatch(findImportedWishes());
+        }
+    }
+
+    @Test
+    public void importWishesSavesTheRowsOfAFailedBatchOneByOne() throws Exception {
+        // The wishlist of the second row does not exist, so the batch fails and only that row is rejected
+        String csv = "productId,price,wishlistId\n" +
+            IMPORTED_PRODUCT_ID + ",1,\n" +
+            IMPORTED_PRODUCT_ID + ",2," + Long.MAX_VALUE + "\n" +
+            IMPORTED_PRODUCT_ID + ",3,\n";
+
+        try {
+            restWishMockMvc.perform(post("/api/wishes/import")
+                .contentType("text/csv")
+                .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(2))
+                .andExpect(jsonPath("$.rejectedCount").value(1))
+                .andExpect(jsonPath("$.errors.[*].line").value(contains(3)))
+                .andExpect(jsonPath("$.errors.[*].message").value(contains(WishImportService.SAVE_ERROR)));
+
+            assertThat(findImportedPrices()).containsOnly(1, 3);
+        } finally {
+            wishRepository.deleteInBatch(findImportedWishes());
+        }
+    }
+
+    private List<Wish> findImportedWishes() {
+        return wishRepository.findAll().stream()
+            .filter(wish -> IMPORTED_PRODUCT_ID.equals(wish.getProductId()))
+            .collect(Collectors.toList());
+    }
+
+    private List<Integer> findImportedPrices() {
+        return findImportedWishes().stream().map(wish -> wish.getPrice().intValue()).collect(Collectors.toList());
+    }
+
     @Test
     @Transactional
     public void checkProductIdIsRequired() throws Exception {
@@ -186,6 +356,241 @@ public class WishResourceIntTest {
             .andExpect(jsonPath("$.[*].price").value(hasItem(DEFAULT_PRICE.intValue())));
     }
 
+    /*
+     * The read endpoints have an exact budget of JDBC statements, so that loading the wishlists and their users one
+     * by one fails the build. The pages are full, so that they are counted by a second statement. The write endpoints
+     * have none, as their ids come from a pooled generator, which only sometimes reads the database.
+     */
+
+    @Test
+    @Transactional
+    public void getAllWishesQueryBudget() throws Exception {
+        // Initialize the database with wishes in two wishlists of a user
+        User user = UserResourceIntTest.createEntity(em);
+        for (int i = 0; i < 2; i++) {
+            Wishlist wishlist = WishlistResourceIntTest.createEntity(em).user(user);
+            em.persist(wishlist);
+            em.persist(createEntity(em).wishlist(wishlist));
+        }
+        em.flush();
+        em.clear();
+
+        // The wishes, their wishlists and the users of the wishlists are read in a single query, then counted
+        TestUtil.resetStatementCount(em);
+        restWishMockMvc.perform(get("/api/wishes?sort=id,desc&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[*].wishlist.user.login").value(hasItem(user.getLogin())));
+        TestUtil.assertStatementCount(em, 2);
+    }
+
+    @Test
+    @Transactional
+    public void getAllWishesByCursorQueryBudget() throws Exception {
+        // Initialize the database with wishes in two wishlists of a user
+        User user = UserResourceIntTest.createEntity(em);
+        for (int i = 0; i < 2; i++) {
+            Wishlist wishlist = WishlistResourceIntTest.createEntity(em).user(user);
+            em.persist(wishlist);
+            em.persist(createEntity(em).wishlist(wishlist));
+        }
+        em.flush();
+        em.clear();
+
+        // A slice is not counted: one more wish is read to know whether there is a next slice
+        TestUtil.resetStatementCount(em);
+        restWishMockMvc.perform(get("/api/wishes?cursor=&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)));
+        TestUtil.assertStatementCount(em, 1);
+    }
+
+    @Test
+    @Transactional
+    public void getWishesOfWishlistQueryBudget() throws Exception {
+        // Initialize the database with wishes in a wishlist of a user
+        User user = UserResourceIntTest.createEntity(em);
+        Wishlist wishlist = WishlistResourceIntTest.createEntity(em).user(user);
+        em.persist(wishlist);
+        for (int i = 0; i < 2; i++) {
+            em.persist(createEntity(em).wishlist(wishlist));
+        }
+        em.flush();
+        em.clear();
+
+        TestUtil.resetStatementCount(em);
+        restWishMockMvc.perform(get("/api/wishlists/{wishlistId}/wishes?size=2", wishlist.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].wishlist.user.login").value(hasItem(user.getLogin())));
+        TestUtil.assertStatementCount(em, 2);
+    }
+
+    @Test
+    @Transactional
+    public void getWishesOfProductQueryBudget() throws Exception {
+        // Initialize the database with wishes of a product in two wishlists of a user
+        User user = UserResourceIntTest.createEntity(em);
+        for (int i = 0; i < 2; i++) {
+            Wishlist wishlist = WishlistResourceIntTest.createEntity(em).user(user);
+            em.persist(wishlist);
+            em.persist(createEntity(em).productId(UPDATED_PRODUCT_ID).wishlist(wishlist));
+        }
+        em.flush();
+        em.clear();
+
+        TestUtil.resetStatementCount(em);
+        restWishMockMvc.perform(get("/api/products/{productId}/wishes?size=2", UPDATED_PRODUCT_ID))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].wishlist.user.login").value(hasItem(user.getLogin())));
+        TestUtil.assertStatementCount(em, 2);
+    }
+
+    @Test
+    @Transactional
+    public void getWishQueryBudget() throws Exception {
+        // Initialize the database
+        User user = UserResourceIntTest.createEntity(em);
+        Wishlist wishlist = WishlistResourceIntTest.createEntity(em).user(user);
+        em.persist(wishlist);
+        em.persist(wish.wishlist(wishlist));
+        em.flush();
+        em.clear();
+
+        TestUtil.resetStatementCount(em);
+        restWishMockMvc.perform(get("/api/wishes/{id}", wish.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.wishlist.user.login").value(user.getLogin()));
+        TestUtil.assertStatementCount(em, 1);
+    }
+
+    @Test
+    @Transactional
+    public void getWishesOfWishlist() throws Exception {
+        // Initialize the database with a wish in a wishlist, and another one outside of it
+        Wishlist wishlist = WishlistResourceIntTest.createEntity(em);
+        em.persist(wishlist);
+        em.persist(wish.wishlist(wishlist));
+        Wish otherWish = createEntity(em);
+        em.persist(otherWish);
+        em.flush();
+
+        restWishMockMvc.perform(get("/api/wishlists/{wishlistId}/wishes", wishlist.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(wish.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getWishesOfProduct() throws Exception {
+        // Initialize the database
+        wishRepository.saveAndFlush(wish);
+        Wish otherWish = wishRepository.saveAndFlush(createEntity(em).productId(UPDATED_PRODUCT_ID));
+
+        restWishMockMvc.perform(get("/api/products/{productId}/wishes", UPDATED_PRODUCT_ID))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(otherWish.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllWishesByCursor() throws Exception {
+        // Initialize the database
+        Wish first = wishRepository.saveAndFlush(createEntity(em));
+        Wish second = wishRepository.saveAndFlush(createEntity(em));
+        Wish third = wishRepository.saveAndFlush(createEntity(em));
+
+        // Get the first slice, starting right before the first wish
+        String cursor = PaginationUtil.encodeCursor(first.getId() - 1);
+        restWishMockMvc.perform(get("/api/wishes?cursor={cursor}&size=2", cursor))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), second.getId().intValue())))
+            .andExpect(header().string(HttpHeaders.LINK,
+                containsString("cursor=" + PaginationUtil.encodeCursor(second.getId()) + "&size=2>; rel=\"next\"")))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+
+        // Follow the next cursor
+        restWishMockMvc.perform(get("/api/wishes?cursor={cursor}&size=2", PaginationUtil.encodeCursor(second.getId())))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllWishesWithInvalidCursor() throws Exception {
+        restWishMockMvc.perform(get("/api/wishes?cursor={cursor}", PaginationUtil.encodeCursor("not-an-id")))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void exportWishesOfWishlist() throws Exception {
+        // Initialize the database with a wish in a wishlist, and another one outside of it
+        Wishlist wishlist = WishlistResourceIntTest.createEntity(em);
+        em.persist(wishlist);
+        em.persist(wish.wishlist(wishlist));
+        em.persist(createEntity(em));
+        em.flush();
+
+        List<Long> exportedIds = new ArrayList<>();
+        wishService.exportAll(wishlist.getId(), exported -> exportedIds.add(exported.getId()));
+        assertThat(exportedIds).containsExactly(wish.getId());
+    }
+
+    @Test
+    public void exportWishesAsNdjson() throws Exception {
+        // Not transactional, as the wishes are streamed by another thread, in its own transaction
+        Wishlist wishlist = wishlistRepository.saveAndFlush(WishlistResourceIntTest.createEntity(em));
+        Wish first = wishRepository.saveAndFlush(createEntity(em).price(new BigDecimal("10.50")).wishlist(wishlist));
+        Wish second = wishRepository.saveAndFlush(createEntity(em).productId(UPDATED_PRODUCT_ID).wishlist(wishlist));
+        try {
+            MvcResult result = restWishMockMvc.perform(get("/api/wishes/export?wishlistId={id}", wishlist.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            restWishMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().string(
+                    "{\"id\":" + first.getId() + ",\"productId\":" + DEFAULT_PRODUCT_ID +
+                        ",\"price\":10.50,\"wishlistId\":" + wishlist.getId() + "}\n" +
+                    "{\"id\":" + second.getId() + ",\"productId\":" + UPDATED_PRODUCT_ID +
+                        ",\"price\":0.00,\"wishlistId\":" + wishlist.getId() + "}\n"));
+        } finally {
+            wishRepository.delete(Arrays.asList(first, second));
+            wishlistRepository.delete(wishlist);
+        }
+    }
+
+    @Test
+    public void exportWishesAsCsv() throws Exception {
+        // Not transactional, as the wishes are streamed by another thread, in its own transaction
+        Wishlist wishlist = wishlistRepository.saveAndFlush(WishlistResourceIntTest.createEntity(em));
+        Wish first = wishRepository.saveAndFlush(createEntity(em).price(new BigDecimal("10.50")).wishlist(wishlist));
+        try {
+            MvcResult result = restWishMockMvc.perform(get("/api/wishes/export?wishlistId={id}&format=csv",
+                wishlist.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            restWishMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wishes.csv\""))
+                .andExpect(content().string("id,productId,price,wishlistId\n" +
+                    first.getId() + "," + DEFAULT_PRODUCT_ID + ",10.50," + wishlist.getId() + "\n"));
+        } finally {
+            wishRepository.delete(first);
+            wishlistRepository.delete(wishlist);
+        }
+    }
+
+    @Test
+    public void exportWishesWithUnsupportedFormat() throws Exception {
+        restWishMockMvc.perform(get("/api/wishes/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getWish() throws Exception {
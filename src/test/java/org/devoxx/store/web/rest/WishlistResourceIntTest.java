@@ -2,9 +2,14 @@ package org.devoxx.store.web.rest;
 
 import org.devoxx.store.StoreApp;
 
+import org.devoxx.store.domain.User;
+import org.devoxx.store.domain.Wish;
 import org.devoxx.store.domain.Wishlist;
 import org.devoxx.store.repository.WishlistRepository;
+import org.devoxx.store.service.WishService;
+import org.devoxx.store.service.WishlistService;
 import org.devoxx.store.web.rest.errors.ExceptionTranslator;
+import org.devoxx.store.web.rest.util.PaginationUtil;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -12,21 +17,29 @@ import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +64,12 @@ public class WishlistResourceIntTest {
     @Autowired
     private WishlistRepository wishlistRepository;
 
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishService wishService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -60,6 +79,9 @@ public class WishlistResourceIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private EntityManager em;
 
@@ -70,7 +92,7 @@ public class WishlistResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-            WishlistResource wishlistResource = new WishlistResource(wishlistRepository);
+            WishlistResource wishlistResource = new WishlistResource(wishlistRepository, wishlistService);
         this.restWishlistMockMvc = MockMvcBuilders.standaloneSetup(wishlistResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -93,6 +115,7 @@ public class WishlistResourceIntTest {
 
     @Before
     public void initTest() {
+        cacheManager.getCache(WishlistService.WISHLISTS_BY_USER_CACHE).clear();
         wishlist = createEntity(em);
     }
 
@@ -157,9 +180,11 @@ public class WishlistResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser("test")
     public void getAllWishlists() throws Exception {
         // Initialize the database
-        wishlistRepository.saveAndFlush(wishlist);
+        User user = UserResourceIntTest.createEntity(em);
+        wishlistRepository.saveAndFlush(wishlist.user(user));
 
         // Get all the wishlistList
         restWishlistMockMvc.perform(get("/api/wishlists?sort=id,desc"))
@@ -171,6 +196,53 @@ public class WishlistResourceIntTest {
             .andExpect(jsonPath("$.[*].hidden").value(hasItem(DEFAULT_HIDDEN.booleanValue())));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("test")
+    public void getAllWishlistsByCursor() throws Exception {
+        // Initialize the database
+        User user = UserResourceIntTest.createEntity(em);
+        Wishlist first = wishlistRepository.saveAndFlush(wishlist.user(user));
+        Wishlist second = wishlistRepository.saveAndFlush(createEntity(em).user(user));
+        Wishlist third = wishlistRepository.saveAndFlush(createEntity(em).user(user));
+
+        // Get the first slice, starting right before the first wishlist
+        restWishlistMockMvc.perform(get("/api/wishlists?cursor={cursor}&size=2",
+            PaginationUtil.encodeCursor(first.getId() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), second.getId().intValue())))
+            .andExpect(header().string(HttpHeaders.LINK,
+                containsString("cursor=" + PaginationUtil.encodeCursor(second.getId()) + "&size=2>; rel=\"next\"")))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+
+        // Follow the next cursor to the last slice, which has no next link
+        restWishlistMockMvc.perform(get("/api/wishlists?cursor={cursor}&size=2",
+            PaginationUtil.encodeCursor(second.getId())))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(third.getId().intValue())))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("cursor=&size=2>; rel=\"first\"")));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("test")
+    public void getAllWishlistsFromCache() throws Exception {
+        // Initialize the database and the cache
+        User user = UserResourceIntTest.createEntity(em);
+        wishlistRepository.saveAndFlush(wishlist.user(user));
+        restWishlistMockMvc.perform(get("/api/wishlists"))
+            .andExpect(status().isOk());
+
+        // The wishlists of the user are read from the cache
+        TestUtil.resetStatementCount(em);
+        restWishlistMockMvc.perform(get("/api/wishlists"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(wishlist.getId().intValue())));
+        TestUtil.assertStatementCount(em, 0);
+    }
+
     @Test
     @Transactional
     public void getWishlist() throws Exception {
@@ -195,6 +267,70 @@ public class WishlistResourceIntTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    public void getWishlistSummary() throws Exception {
+        // Initialize the database with a wishlist, and wishes added, updated, moved and deleted
+        wishlistRepository.saveAndFlush(wishlist);
+        Wishlist otherWishlist = wishlistRepository.saveAndFlush(createEntity(em));
+        Wish first = wishService.save(WishResourceIntTest.createEntity(em).price(new BigDecimal("10.50")).wishlist(wishlist));
+        wishService.saveAll(Arrays.asList(
+            WishResourceIntTest.createEntity(em).price(new BigDecimal("2")).wishlist(wishlist),
+            WishResourceIntTest.createEntity(em).price(new BigDecimal("3")).wishlist(wishlist)));
+        Wish moved = wishService.save(WishResourceIntTest.createEntity(em).price(new BigDecimal("100")).wishlist(wishlist));
+        em.flush();
+        em.clear();
+        wishService.save(first.price(new BigDecimal("20")));
+        wishService.save(moved.wishlist(otherWishlist));
+        Wish deleted = wishService.save(WishResourceIntTest.createEntity(em).price(new BigDecimal("1000")).wishlist(wishlist));
+        wishService.delete(deleted.getId());
+
+        // Get the summary
+        restWishlistMockMvc.perform(get("/api/wishlists/{id}/summary", wishlist.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.id").value(wishlist.getId().intValue()))
+            .andExpect(jsonPath("$.wishCount").value(3))
+            .andExpect(jsonPath("$.totalPrice").value(25.0));
+        assertThat(wishlistService.findSummary(otherWishlist.getId()).getTotalPrice()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    @Transactional
+    public void updateTotalsOfManagedWishlist() throws Exception {
+        // The totals are updated in the database, then read again into the wishlist managed by the persistence context
+        wishlistRepository.saveAndFlush(wishlist);
+        Wish wish = wishService.save(WishResourceIntTest.createEntity(em).price(new BigDecimal("4")).wishlist(wishlist));
+        assertThat(wishlist.getWishCount()).isEqualTo(1L);
+        assertThat(wishlist.getTotalPrice()).isEqualByComparingTo("4");
+
+        wishService.delete(wish.getId());
+        assertThat(wishlist.getWishCount()).isEqualTo(0L);
+        assertThat(wishlist.getTotalPrice()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingWishlistSummary() throws Exception {
+        restWishlistMockMvc.perform(get("/api/wishlists/{id}/summary", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void reconcileWishlistTotals() throws Exception {
+        // Initialize the database with a wish added behind the back of WishService
+        wishlistRepository.saveAndFlush(wishlist);
+        em.persist(WishResourceIntTest.createEntity(em).price(new BigDecimal("4")).wishlist(wishlist));
+        em.flush();
+        assertThat(wishlistService.findSummary(wishlist.getId()).getWishCount()).isEqualTo(0);
+
+        wishlistService.reconcileTotals();
+
+        assertThat(wishlistService.findSummary(wishlist.getId()).getWishCount()).isEqualTo(1);
+        assertThat(wishlistService.findSummary(wishlist.getId()).getTotalPrice()).isEqualByComparingTo("4");
+    }
+
     @Test
     @Transactional
     public void updateWishlist() throws Exception {